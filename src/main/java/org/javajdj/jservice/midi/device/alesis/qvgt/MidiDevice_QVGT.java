@@ -16,14 +16,21 @@
  */
 package org.javajdj.jservice.midi.device.alesis.qvgt;
 
-import java.time.Duration;
-import java.time.Instant;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import org.javajdj.jservice.midi.device.AbstractMidiDevice;
 import org.javajdj.jservice.midi.device.MidiDevice;
@@ -33,6 +40,9 @@ import org.javajdj.jservice.Service;
 import org.javajdj.util.hex.HexUtils;
 import org.javajdj.jservice.midi.MidiService;
 import org.javajdj.jservice.midi.device.MidiDeviceListener;
+import org.javajdj.jservice.midi.device.support.MidiDeviceScheduler;
+import org.javajdj.jservice.midi.device.support.MidiDeviceParameterBatchListener;
+import org.javajdj.jservice.midi.device.support.ParameterUpdateBatch;
 
 /** Implementation of {@link MidiDevice} for the Alesis Quadraverb GT.
  *
@@ -61,8 +71,9 @@ public class MidiDevice_QVGT
   /** Creates the {@link MidiDevice} for the Alesis Quadraverb GT.
    *
    * <p>
-   * Registers all parameters as well as a {@link Runnable} doing the main request (for Edit-Buffer contents, a.o.) loop
-   * and one as a watchdog.
+   * Registers all parameters as well as a status listener scheduling, while the device is active,
+   * the main request (for Edit-Buffer contents, a.o.) loop
+   * and a watchdog on the shared {@link MidiDeviceScheduler}.
    * 
    * @param midiService The {@link MidiService} to use.
    *
@@ -71,8 +82,7 @@ public class MidiDevice_QVGT
   {
     super (midiService);
     registerParameters ();
-    addRunnable (this.qvgtMainRequestLoop);
-    addRunnable (this.qvgtWatchdog);
+    addStatusListener (this.qvgtScheduledTasks);
   }
 
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -81,10 +91,44 @@ public class MidiDevice_QVGT
   //
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
-  private static final class ONLY_CONFIGS
+  /** A parent validator that depends solely on the configuration and the pitch, eq and reverb modes of a patch.
+   * 
+   * <p>
+   * Besides being applicable to a {@link Patch_QGVT} directly,
+   * the validator can be evaluated on a combination of configuration and modes,
+   * which allows for precomputing the validity of sub-parameters for all such combinations.
+   * 
+   * @see SubParameterPlan
+   * 
+   */
+  private static abstract class ModeValidator
     implements Function<Object, Boolean>
   {
     
+    /** Evaluates this validator on a given configuration and modes.
+     * 
+     * @param configuration The configuration, non-{@code null}.
+     * @param pitchMode     The pitch mode, {@code null} if not applicable to the configuration.
+     * @param eqModeConfig1 The eq mode, {@code null} if the configuration is other than 1.
+     * @param eqModeConfig4 The eq mode, {@code null} if the configuration is other than 4.
+     * @param reverbMode    The reverb mode, {@code null} if not applicable to the configuration.
+     * 
+     * @return Whether the sub-parameter is valid for the given configuration and modes.
+     * 
+     */
+    abstract boolean isValid (
+      Patch_QGVT.Configuration configuration,
+      MidiDevice_QVGT.PitchMode pitchMode,
+      MidiDevice_QVGT.EqModeConfig1 eqModeConfig1,
+      MidiDevice_QVGT.EqModeConfig4 eqModeConfig4,
+      MidiDevice_QVGT.ReverbMode reverbMode);
+    
+  }
+  
+  private static final class ONLY_CONFIGS
+    extends ModeValidator
+  {
+    
     private final EnumSet<Patch_QGVT.Configuration> configurations;
 
     public ONLY_CONFIGS (final EnumSet<Patch_QGVT.Configuration> configurations)
@@ -102,10 +146,21 @@ public class MidiDevice_QVGT
         && this.configurations.contains (((Patch_QGVT) t).getConfiguration ());
     }
         
+    @Override
+    final boolean isValid (
+      final Patch_QGVT.Configuration configuration,
+      final MidiDevice_QVGT.PitchMode pitchMode,
+      final MidiDevice_QVGT.EqModeConfig1 eqModeConfig1,
+      final MidiDevice_QVGT.EqModeConfig4 eqModeConfig4,
+      final MidiDevice_QVGT.ReverbMode reverbMode)
+    {
+      return this.configurations.contains (configuration);
+    }
+    
   }
   
   private static final class ONLY_CONFIGS14_WITH_PITCH_MODES
-    implements Function<Object, Boolean>
+    extends ModeValidator
   {
     
     private static final EnumSet<Patch_QGVT.Configuration> CONFIGURATIONS = EnumSet.of (
@@ -130,10 +185,23 @@ public class MidiDevice_QVGT
         && this.pitchModes.contains (((Patch_QGVT) t).getPitchMode_Configs14 ());
     }
         
+    @Override
+    final boolean isValid (
+      final Patch_QGVT.Configuration configuration,
+      final MidiDevice_QVGT.PitchMode pitchMode,
+      final MidiDevice_QVGT.EqModeConfig1 eqModeConfig1,
+      final MidiDevice_QVGT.EqModeConfig4 eqModeConfig4,
+      final MidiDevice_QVGT.ReverbMode reverbMode)
+    {
+      return CONFIGURATIONS.contains (configuration)
+        && pitchMode != null
+        && this.pitchModes.contains (pitchMode);
+    }
+    
   }
   
   private static final class ONLY_CONFIG1_WITH_EQ_MODES
-    implements Function<Object, Boolean>
+    extends ModeValidator
   {
     
     private static final EnumSet<Patch_QGVT.Configuration> CONFIGURATIONS = EnumSet.of (Patch_QGVT.Configuration.C1_EQ_PCH_DL_REV);
@@ -156,10 +224,23 @@ public class MidiDevice_QVGT
         && this.eqModes.contains (((Patch_QGVT) t).getEqMode_Config1 ());
     }
         
+    @Override
+    final boolean isValid (
+      final Patch_QGVT.Configuration configuration,
+      final MidiDevice_QVGT.PitchMode pitchMode,
+      final MidiDevice_QVGT.EqModeConfig1 eqModeConfig1,
+      final MidiDevice_QVGT.EqModeConfig4 eqModeConfig4,
+      final MidiDevice_QVGT.ReverbMode reverbMode)
+    {
+      return CONFIGURATIONS.contains (configuration)
+        && eqModeConfig1 != null
+        && this.eqModes.contains (eqModeConfig1);
+    }
+    
   }
   
   private static final class ONLY_CONFIG4_WITH_EQ_MODES
-    implements Function<Object, Boolean>
+    extends ModeValidator
   {
     
     private static final EnumSet<Patch_QGVT.Configuration> CONFIGURATIONS = EnumSet.of (Patch_QGVT.Configuration.C4_5EQ_PCH_DL);
@@ -182,10 +263,23 @@ public class MidiDevice_QVGT
         && this.eqModes.contains (((Patch_QGVT) t).getEqMode_Config4 ());
     }
         
+    @Override
+    final boolean isValid (
+      final Patch_QGVT.Configuration configuration,
+      final MidiDevice_QVGT.PitchMode pitchMode,
+      final MidiDevice_QVGT.EqModeConfig1 eqModeConfig1,
+      final MidiDevice_QVGT.EqModeConfig4 eqModeConfig4,
+      final MidiDevice_QVGT.ReverbMode reverbMode)
+    {
+      return CONFIGURATIONS.contains (configuration)
+        && eqModeConfig4 != null
+        && this.eqModes.contains (eqModeConfig4);
+    }
+    
   }
   
   private static final class ONLY_CONFIGS1267_WITH_REVERB_MODES
-    implements Function<Object, Boolean>
+    extends ModeValidator
   {
     
     private static final EnumSet<Patch_QGVT.Configuration> CONFIGURATIONS = EnumSet.of (
@@ -212,10 +306,23 @@ public class MidiDevice_QVGT
         && this.reverbModes.contains (((Patch_QGVT) t).getReverbMode ());
     }
         
+    @Override
+    final boolean isValid (
+      final Patch_QGVT.Configuration configuration,
+      final MidiDevice_QVGT.PitchMode pitchMode,
+      final MidiDevice_QVGT.EqModeConfig1 eqModeConfig1,
+      final MidiDevice_QVGT.EqModeConfig4 eqModeConfig4,
+      final MidiDevice_QVGT.ReverbMode reverbMode)
+    {
+      return CONFIGURATIONS.contains (configuration)
+        && reverbMode != null
+        && this.reverbModes.contains (reverbMode);
+    }
+    
   }
   
   private static final class ONLY_CONFIG5_WITH_REVERB_MODES
-    implements Function<Object, Boolean>
+    extends ModeValidator
   {
     
     private static final EnumSet<Patch_QGVT.Configuration> CONFIGURATIONS = EnumSet.of (Patch_QGVT.Configuration.C5_3EQ_REV);
@@ -238,6 +345,128 @@ public class MidiDevice_QVGT
         && this.reverbModes.contains (((Patch_QGVT) t).getReverbMode ());
     }
         
+    @Override
+    final boolean isValid (
+      final Patch_QGVT.Configuration configuration,
+      final MidiDevice_QVGT.PitchMode pitchMode,
+      final MidiDevice_QVGT.EqModeConfig1 eqModeConfig1,
+      final MidiDevice_QVGT.EqModeConfig4 eqModeConfig4,
+      final MidiDevice_QVGT.ReverbMode reverbMode)
+    {
+      return CONFIGURATIONS.contains (configuration)
+        && reverbMode != null
+        && this.reverbModes.contains (reverbMode);
+    }
+    
+  }
+  
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // PARENT [VALUE] VALIDATORS
+  // MODE INDEX
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  private final static Patch_QGVT.Configuration[] CONFIGURATIONS = Patch_QGVT.Configuration.values ();
+  
+  private final static MidiDevice_QVGT.PitchMode[] PITCH_MODES = MidiDevice_QVGT.PitchMode.values ();
+  
+  private final static MidiDevice_QVGT.ReverbMode[] REVERB_MODES = MidiDevice_QVGT.ReverbMode.values ();
+  
+  /** The number of distinct mode indices.
+   * 
+   * @see #getModeIndex
+   * 
+   */
+  private final static int NUMBER_OF_MODE_INDICES = CONFIGURATIONS.length * PITCH_MODES.length * 2 * REVERB_MODES.length;
+  
+  /** Returns the mode index of given decoded patch data.
+   * 
+   * <p>
+   * The mode index uniquely identifies the combination of configuration, pitch mode, eq mode and reverb mode,
+   * in which modes not applicable to the configuration are ignored (mapped onto zero).
+   * This is exactly the information on which the {@link ModeValidator}s depend.
+   * 
+   * @param decodedBytes The decoded patch data, non-{@code null}.
+   * 
+   * @return The mode index, between zero (inclusive) and {@link #NUMBER_OF_MODE_INDICES} (exclusive),
+   *         or {@code -1} if the patch data holds an illegal configuration or (applicable) mode.
+   * 
+   * @see #NUMBER_OF_MODE_INDICES
+   * 
+   */
+  private static int getModeIndex (final byte[] decodedBytes)
+  {
+    if (decodedBytes == null)
+      throw new IllegalArgumentException ();
+    if (decodedBytes.length <= Patch_QGVT.OFFSET_EQ_MODE)
+      return -1;
+    final int configuration = decodedBytes[Patch_QGVT.OFFSET_CONFIGURATION];
+    if (configuration < 0 || configuration >= CONFIGURATIONS.length)
+      return -1;
+    int pitchMode = 0;
+    int eqMode = 0;
+    int reverbMode = 0;
+    switch (CONFIGURATIONS[configuration])
+    {
+      case C1_EQ_PCH_DL_REV:
+      case C4_5EQ_PCH_DL:
+        pitchMode = decodedBytes[Patch_QGVT.OFFSET_PITCH_MODE];
+        if (pitchMode < 0 || pitchMode >= PITCH_MODES.length)
+          return -1;
+        eqMode = (decodedBytes[Patch_QGVT.OFFSET_EQ_MODE] & 0x80) != 0 ? 1 : 0;
+        break;
+      default:
+        break;
+    }
+    switch (CONFIGURATIONS[configuration])
+    {
+      case C1_EQ_PCH_DL_REV:
+      case C2_LES_DL_REV:
+      case C5_3EQ_REV:
+      case C6_RING_DL_REV:
+      case C7_RESO_DL_REV:
+        reverbMode = decodedBytes[Patch_QGVT.OFFSET_REVERB_MODE];
+        if (reverbMode < 0 || reverbMode >= REVERB_MODES.length)
+          return -1;
+        break;
+      default:
+        break;
+    }
+    return ((configuration * PITCH_MODES.length + pitchMode) * 2 + eqMode) * REVERB_MODES.length + reverbMode;
+  }
+  
+  /** Evaluates a {@link ModeValidator} on the configuration and modes identified by a mode index.
+   * 
+   * @param modeValidator The validator, non-{@code null}.
+   * @param modeIndex     The mode index.
+   * 
+   * @return The outcome of the validator.
+   * 
+   * @see #getModeIndex
+   * 
+   */
+  private static boolean isValid (final ModeValidator modeValidator, final int modeIndex)
+  {
+    if (modeValidator == null || modeIndex < 0 || modeIndex >= NUMBER_OF_MODE_INDICES)
+      throw new IllegalArgumentException ();
+    final int reverbMode = modeIndex % REVERB_MODES.length;
+    final int eqMode = (modeIndex / REVERB_MODES.length) % 2;
+    final int pitchMode = (modeIndex / (REVERB_MODES.length * 2)) % PITCH_MODES.length;
+    final Patch_QGVT.Configuration configuration = CONFIGURATIONS[modeIndex / (REVERB_MODES.length * 2 * PITCH_MODES.length)];
+    final boolean hasPitchAndEqMode =
+      configuration == Patch_QGVT.Configuration.C1_EQ_PCH_DL_REV
+      || configuration == Patch_QGVT.Configuration.C4_5EQ_PCH_DL;
+    final boolean hasReverbMode =
+      configuration != Patch_QGVT.Configuration.C3_GEQ_DL
+      && configuration != Patch_QGVT.Configuration.C4_5EQ_PCH_DL
+      && configuration != Patch_QGVT.Configuration.C8_SAMPLING;
+    return modeValidator.isValid (
+      configuration,
+      hasPitchAndEqMode ? PITCH_MODES[pitchMode] : null,
+      configuration == Patch_QGVT.Configuration.C1_EQ_PCH_DL_REV ? EqModeConfig1.values ()[eqMode] : null,
+      configuration == Patch_QGVT.Configuration.C4_5EQ_PCH_DL ? EqModeConfig4.values ()[eqMode] : null,
+      hasReverbMode ? REVERB_MODES[reverbMode] : null);
   }
   
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -5302,6 +5531,9 @@ public class MidiDevice_QVGT
         else if (this.subParameters.get (parentKey).contains (parameterDescriptor))
           throw new IllegalArgumentException ();
         this.subParameters.get (parentKey).add (parameterDescriptor);
+        if (! this.subParameterPlans.containsKey (parentKey))
+          this.subParameterPlans.put (parentKey, new SubParameterPlan ());
+        this.subParameterPlans.get (parentKey).add (parameterDescriptor);
         break;
       }
       case MidiSysEx_QVGT_DataDump:
@@ -5322,108 +5554,717 @@ public class MidiDevice_QVGT
 
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
   //
-  // QVGT MAIN REQUEST LOOP
+  // SUB-PARAMETER EXTRACTION PLAN
   //
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
-  private final long QVGT_MAIN_REQUEST_LOOP_PERIOD_MS = 2000L; // XXX Set me back to 1000L! XXX
-
-  private final Runnable qvgtMainRequestLoop = () ->
+  /** A flat, precompiled table for extracting all sub-parameters of a single parent parameter from its (decoded) value.
+   * 
+   * <p>
+   * The table is built incrementally upon parameter registration, see {@link #registerParameter},
+   * and holds, for each sub-parameter (in order of registration), its offset(s), size, bit shift and mask,
+   * as well as a reusable buffer for the extracted bytes,
+   * so that a single pass over the decoded parent value extracts all sub-parameters without allocation.
+   * 
+   * <p>
+   * Extraction buffers are reused between invocations, and therefore only handed to the value conversion
+   * if the conversion does not retain the array itself (i.e., in all cases except
+   * {@link ParameterDescriptor_QVGT.ParameterConversion_QVGT#NONE}).
+   * 
+   * <p>
+   * The table also keeps the last decoded parent value it processed,
+   * and a reverse index from byte offset to the sub-parameters covering that byte.
+   * Once a previous value is known, only sub-parameters whose bits actually changed are re-derived.
+   * 
+   * <p>
+   * The validity of the sub-parameters is looked up (once per parent value) in a table of bit sets,
+   * indexed by the mode index of the parent value (i.e., its configuration and modes),
+   * and filled on demand from the {@link ModeValidator}s of the sub-parameters.
+   * Upon a change of mode index, only sub-parameters whose validity changed are invalidated or re-enabled.
+   * Sub-parameters with a parent validator other than a {@link ModeValidator},
+   * as well as all sub-parameters of parent values with an illegal configuration or mode,
+   * are validated on each pass through their parent validators directly.
+   * 
+   * @see #getModeIndex
+   * 
+   */
+  private final class SubParameterPlan
   {
-    LOG.log (Level.INFO, "Starting Main Request Loop on Alesis Quadraverb GT.");
-    try
+    
+    private int size = 0;
+    
+    private ParameterDescriptor_QVGT<?>[] descriptors = new ParameterDescriptor_QVGT<?>[0];
+    
+    private int[] offsets = new int[0];
+    
+    private int[][] scatterOffsets = new int[0][];
+    
+    private int[] sizes = new int[0];
+    
+    private int[] bitShifts = new int[0];
+    
+    private int[] bitMasks = new int[0];
+    
+    private byte[][] buffers = new byte[0][];
+    
+    private int[][] entriesByOffset = new int[0][];
+    
+    private boolean[] dirty = new boolean[0];
+    
+    private ModeValidator[] modeValidators = new ModeValidator[0];
+    
+    private boolean[] dynamicValidity = new boolean[0];
+    
+    private final long[][] validityMasks = new long[MidiDevice_QVGT.NUMBER_OF_MODE_INDICES][];
+    
+    private final Map<String, Integer> indices = new HashMap<> ();
+    
+    private byte[] lastDecodedValue = null;
+    
+    private int lastModeIndex = -1;
+    
+    private synchronized void add (final ParameterDescriptor_QVGT<?> subPD)
     {
-      while (! Thread.interrupted ())
+      final int[] subOffsets = subPD.getOffsets ();
+      final int subSize = subPD.getSize ();
+      if (subOffsets.length == 0
+        || subSize <= 0
+        || (subOffsets.length > 1 && subOffsets.length != subSize))
+        throw new IllegalArgumentException ();
+      for (final int offset : subOffsets)
+        if (offset < 0)
+          throw new IllegalArgumentException ();
+      final int p = this.size;
+      final int newSize = p + 1;
+      this.descriptors = Arrays.copyOf (this.descriptors, newSize);
+      this.offsets = Arrays.copyOf (this.offsets, newSize);
+      this.scatterOffsets = Arrays.copyOf (this.scatterOffsets, newSize);
+      this.sizes = Arrays.copyOf (this.sizes, newSize);
+      this.bitShifts = Arrays.copyOf (this.bitShifts, newSize);
+      this.bitMasks = Arrays.copyOf (this.bitMasks, newSize);
+      this.buffers = Arrays.copyOf (this.buffers, newSize);
+      this.dirty = new boolean[newSize];
+      this.modeValidators = Arrays.copyOf (this.modeValidators, newSize);
+      this.dynamicValidity = Arrays.copyOf (this.dynamicValidity, newSize);
+      Arrays.fill (this.validityMasks, null);
+      this.descriptors[p] = subPD;
+      this.indices.put (subPD.getParameterName (), p);
+      this.offsets[p] = (subOffsets.length == 1 ? subOffsets[0] : -1);
+      this.scatterOffsets[p] = (subOffsets.length == 1 ? null : subOffsets.clone ());
+      this.sizes[p] = subSize;
+      if (subPD.getBitOffset () != null)
+      {
+        // The bit offset is counted from the most significant bit in the byte.
+        final int bitOffset = subPD.getBitOffset ();
+        final int bitSize = subPD.getBitSize ();
+        this.bitShifts[p] = 8 - bitOffset - bitSize;
+        this.bitMasks[p] = (1 << bitSize) - 1;
+      }
+      else
       {
-        // The Alesis Quadraverb GT does not support Midi Id Request...
-        // MidiDevice_QVGT.this.sendMidiIdReq ();
-        MidiDevice_QVGT.this.sendMidiSysExMessage_QGVT_DumpRequest_EditBuffer ();
-        Thread.sleep (MidiDevice_QVGT.this.QVGT_MAIN_REQUEST_LOOP_PERIOD_MS);
+        this.bitShifts[p] = 0;
+        this.bitMasks[p] = 0xFF;
       }
+      final Function<Object, Boolean> parentValidator = subPD.getParentValidator ();
+      this.modeValidators[p] = (parentValidator instanceof ModeValidator) ? (ModeValidator) parentValidator : null;
+      this.dynamicValidity[p] = (parentValidator != null && ! (parentValidator instanceof ModeValidator));
+      this.buffers[p] =
+        (subPD.getParameterConversion_QVGT () == ParameterDescriptor_QVGT.ParameterConversion_QVGT.NONE)
+          ? null
+          : new byte[subSize];
+      if (subOffsets.length == 1)
+        for (int offset = subOffsets[0]; offset < subOffsets[0] + subSize; offset++)
+          addToReverseIndex (offset, p);
+      else
+        for (final int offset : subOffsets)
+          addToReverseIndex (offset, p);
+      this.size = newSize;
     }
-    catch (InterruptedException ie)
+    
+    private void addToReverseIndex (final int offset, final int p)
     {
+      if (offset >= this.entriesByOffset.length)
+      {
+        final int oldLength = this.entriesByOffset.length;
+        this.entriesByOffset = Arrays.copyOf (this.entriesByOffset, offset + 1);
+        for (int i = oldLength; i < this.entriesByOffset.length; i++)
+          this.entriesByOffset[i] = new int[0];
+      }
+      final int[] entries = this.entriesByOffset[offset];
+      if (entries.length > 0 && entries[entries.length - 1] == p)
+        return;
+      this.entriesByOffset[offset] = Arrays.copyOf (entries, entries.length + 1);
+      this.entriesByOffset[offset][entries.length] = p;
     }
-    LOG.log (Level.INFO, "Terminated Main Request Loop on Alesis Quadraverb GT.");
-  };
-
-  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-  //
-  // QVGT WATCHDOG
-  //
-  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-
-  private volatile Instant lastUpdate = Instant.MIN;
-
-  private volatile boolean watchdogStatus = false;
-
-  private final Runnable qvgtWatchdog = () ->
-  {
-    try
+    
+    private long[] getValidityMask (final int modeIndex)
     {
-      LOG.log (Level.INFO, "Starting Watchdog on Alesis Quadraverb GT.");
-      fireWatchdogStart ();
-      while (! Thread.interrupted ())
+      if (this.validityMasks[modeIndex] == null)
       {
-        boolean newWatchdogStatus;
-        try
+        final long[] validityMask = new long[(this.size + 63) / 64];
+        for (int p = 0; p < this.size; p++)
+          if (this.modeValidators[p] == null || MidiDevice_QVGT.isValid (this.modeValidators[p], modeIndex))
+            validityMask[p >>> 6] |= 1L << p;
+        this.validityMasks[modeIndex] = validityMask;
+      }
+      return this.validityMasks[modeIndex];
+    }
+    
+    private synchronized void reset ()
+    {
+      this.lastDecodedValue = null;
+      this.lastModeIndex = -1;
+    }
+    
+    private synchronized boolean isUnchanged (final byte[] decodedValue)
+    {
+      return this.lastDecodedValue != null && Arrays.equals (this.lastDecodedValue, decodedValue);
+    }
+    
+    private synchronized void extract (final byte[] decodedValue, final Object parentValue)
+    {
+      if (decodedValue == null)
+        throw new IllegalArgumentException ();
+      final byte[] last = this.lastDecodedValue;
+      final int modeIndex = MidiDevice_QVGT.getModeIndex (decodedValue);
+      final boolean full = (last == null || last.length != decodedValue.length || modeIndex < 0 || this.lastModeIndex < 0);
+      if (! full)
+      {
+        final int maxOffset = Math.min (decodedValue.length, this.entriesByOffset.length);
+        for (int offset = 0; offset < maxOffset; offset++)
         {
-          newWatchdogStatus = Duration.between (MidiDevice_QVGT.this.lastUpdate, Instant.now ()).toMillis () <= 2000L;
+          final int changedBits = (last[offset] ^ decodedValue[offset]) & 0xFF;
+          if (changedBits != 0)
+            for (final int p : this.entriesByOffset[offset])
+              if (((changedBits >>> this.bitShifts[p]) & this.bitMasks[p]) != 0)
+                this.dirty[p] = true;
         }
-        catch (ArithmeticException ae)
+      }
+      final long[] validityMask = (modeIndex >= 0 ? getValidityMask (modeIndex) : null);
+      final long[] lastValidityMask = (! full ? getValidityMask (this.lastModeIndex) : null);
+      for (int p = 0; p < this.size; p++)
+      {
+        final boolean changed = this.dirty[p];
+        this.dirty[p] = false;
+        if (validityMask == null || this.dynamicValidity[p])
         {
-          newWatchdogStatus = false;
+          if (full || changed || this.dynamicValidity[p])
+            extractEntryValidated (p, decodedValue, parentValue);
         }
-        if (newWatchdogStatus != MidiDevice_QVGT.this.watchdogStatus)
+        else
         {
-          MidiDevice_QVGT.this.watchdogStatus = newWatchdogStatus;
-          if (newWatchdogStatus)
-            MidiDevice_QVGT.this.fireWatchdogSuccess ();
+          final boolean valid = (validityMask[p >>> 6] & (1L << p)) != 0;
+          final boolean wasValid = (! full) && (lastValidityMask[p >>> 6] & (1L << p)) != 0;
+          if (valid && (full || changed || ! wasValid))
+            extractEntry (p, decodedValue);
+          else if (! valid && (full || wasValid))
+            MidiDevice_QVGT.this.onParameterReadFromDevice (this.descriptors[p].getParameterName (), null);
+        }
+      }
+      if (last == null || last.length != decodedValue.length)
+        this.lastDecodedValue = decodedValue.clone ();
+      else
+        System.arraycopy (decodedValue, 0, last, 0, decodedValue.length);
+      this.lastModeIndex = modeIndex;
+    }
+    
+    private void extractEntryValidated (final int p, final byte[] decodedValue, final Object parentValue)
+    {
+      final Function<Object, Boolean> parentValidator = this.descriptors[p].getParentValidator ();
+      if (parentValidator != null && ! parentValidator.apply (parentValue))
+        MidiDevice_QVGT.this.onParameterReadFromDevice (this.descriptors[p].getParameterName (), null);
+      else
+        extractEntry (p, decodedValue);
+    }
+    
+    private void extractEntry (final int p, final byte[] decodedValue)
+    {
+      final byte[] subValue = (this.buffers[p] != null ? this.buffers[p] : new byte[this.sizes[p]]);
+      copyOut (p, decodedValue, subValue);
+      MidiDevice_QVGT.this.onParameterReadFromDevice (this.descriptors[p].getParameterName (), subValue);
+    }
+    
+    private void copyOut (final int p, final byte[] decodedValue, final byte[] subValue)
+    {
+      final int subSize = this.sizes[p];
+      final int offset = this.offsets[p];
+      if (offset >= 0)
+      {
+        if (offset + subSize > decodedValue.length)
+          throw new RuntimeException ();
+        System.arraycopy (decodedValue, offset, subValue, 0, subSize);
+      }
+      else
+      {
+        final int[] subOffsets = this.scatterOffsets[p];
+        for (int i = 0; i < subSize; i++)
+          if (subOffsets[i] >= decodedValue.length)
+            throw new RuntimeException ();
           else
-            MidiDevice_QVGT.this.fireWatchdogFail ();
+            subValue[i] = decodedValue[subOffsets[i]];
+      }
+      if (this.bitMasks[p] != 0xFF)
+        subValue[0] = (byte) (((subValue[0] & 0xFF) >>> this.bitShifts[p]) & this.bitMasks[p]);
+    }
+    
+    /** Extracts the (raw) value of a sub-parameter from a (decoded) parent value; the inverse of {@link #insert}.
+     * 
+     * @param key          The key of the sub-parameter.
+     * @param decodedValue The decoded parent value, non-{@code null}.
+     * 
+     * @return A new array holding the raw value of the sub-parameter, {@code null} if the key is not in this plan
+     *           or if the parent value is too small.
+     * 
+     */
+    private synchronized byte[] extractBytes (final String key, final byte[] decodedValue)
+    {
+      final Integer p = this.indices.get (key);
+      if (p == null || decodedValue == null)
+        return null;
+      final byte[] subValue = new byte[this.sizes[p]];
+      try
+      {
+        copyOut (p, decodedValue, subValue);
+      }
+      catch (RuntimeException re)
+      {
+        return null;
+      }
+      return subValue;
+    }
+    
+    /** Writes the (raw) value of a sub-parameter into a (decoded) parent value.
+     * 
+     * <p>
+     * Bits of the parent value not covered by the sub-parameter are left untouched.
+     * 
+     * @param key          The key of the sub-parameter.
+     * @param subValue     The raw value of the sub-parameter, as obtained from its value conversion.
+     * @param decodedValue The decoded parent value (modified).
+     * 
+     * @return Whether the value was written, i.e.,
+     *           whether the key is in this plan, the value has proper size and fits in the bits of the sub-parameter,
+     *           and the parent value is large enough.
+     * 
+     */
+    private synchronized boolean insert (final String key, final byte[] subValue, final byte[] decodedValue)
+    {
+      final Integer p = this.indices.get (key);
+      if (p == null || subValue == null || decodedValue == null || subValue.length != this.sizes[p])
+        return false;
+      final int subSize = this.sizes[p];
+      final int offset = this.offsets[p];
+      final int[] subOffsets = this.scatterOffsets[p];
+      for (int i = 0; i < subSize; i++)
+        if ((offset >= 0 ? offset + i : subOffsets[i]) >= decodedValue.length)
+          return false;
+      final int bitMask = this.bitMasks[p];
+      if (bitMask != 0xFF && (subValue[0] & 0xFF) > bitMask)
+        return false;
+      for (int i = 0; i < subSize; i++)
+      {
+        final int target = (offset >= 0 ? offset + i : subOffsets[i]);
+        if (i == 0 && bitMask != 0xFF)
+        {
+          final int shiftedMask = bitMask << this.bitShifts[p];
+          decodedValue[target] =
+            (byte) ((decodedValue[target] & ~shiftedMask) | (((subValue[0] & 0xFF) << this.bitShifts[p]) & shiftedMask));
         }
-        Thread.sleep (1000L);
+        else
+          decodedValue[target] = subValue[i];
       }
+      return true;
+    }
+    
+  }
+  
+  private final Map<String, SubParameterPlan> subParameterPlans = new LinkedHashMap<> ();
+  
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // QVGT SCHEDULED TASKS
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  private final MidiDeviceScheduler.ScheduledTasks qvgtScheduledTasks =
+    new MidiDeviceScheduler.ScheduledTasks ("Alesis Quadraverb GT")
+  {
+    
+    @Override
+    protected final void onStart ()
+    {
+      MidiDevice_QVGT.this.startMainRequestLoop ();
+      MidiDevice_QVGT.this.startWatchdog ();
     }
-    catch (InterruptedException ie)
+
+    @Override
+    protected final void onStop ()
     {
+      MidiDevice_QVGT.this.stopEditingQueue ();
+      MidiDevice_QVGT.this.discardPendingEdits ();
+      MidiDevice_QVGT.this.abortProgramFetch ();
+      MidiDevice_QVGT.this.completeProgramUpload ();
+      MidiDevice_QVGT.this.stopMainRequestLoop ();
+      MidiDevice_QVGT.this.stopWatchdog ();
     }
-    MidiDevice_QVGT.this.watchdogStatus = false;
-    fireWatchdogStop ();
-    LOG.log (Level.INFO, "Terminated Watchdog on Alesis Quadraverb GT.");
+    
   };
-
+  
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
   //
-  // QVGT WATCHDOG LISTENERS
+  // QVGT MAIN REQUEST LOOP
   //
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
-  public static interface MidiDeviceWatchdogListener
-    extends MidiDeviceListener
+  private void startMainRequestLoop ()
   {
-    void watchdogStart ();
-    void watchdogStop ();
-    void watchdogFail ();
-    void watchdogSuccess ();
+    LOG.log (Level.INFO, "Starting Main Request Loop on Alesis Quadraverb GT.");
+    // Make sure the first data dump is processed in full.
+    resetIdenticalDumps ();
+    resetEditBufferRequests ();
+    for (final SubParameterPlan subParameterPlan : this.subParameterPlans.values ())
+      subParameterPlan.reset ();
+    synchronized (this.pollLock)
+    {
+      this.pollPeriodMs = this.minimumPollPeriodMs;
+      this.nextPoll = this.qvgtScheduledTasks.schedule (this::pollEditBuffer, 0L, TimeUnit.NANOSECONDS);
+    }
   }
-
-  protected void fireWatchdogStart ()
+  
+  private void pollEditBuffer ()
   {
-    final Set<MidiDeviceListener> midiDeviceListenersCopy = getMidiDeviceListenersCopy ();
-    for (final MidiDeviceListener l : midiDeviceListenersCopy)
-      if (l instanceof MidiDeviceWatchdogListener)
-        ((MidiDeviceWatchdogListener) l).watchdogStart ();
+    // The Alesis Quadraverb GT does not support Midi Id Request...
+    // sendMidiIdReq ();
+    try
+    {
+      // Leave the MIDI bandwidth to the librarian while it is fetching or uploading programs.
+      if (! isFetchingPrograms () && ! isUploadingPrograms ())
+        sendMidiSysExMessage_QGVT_DumpRequest_EditBuffer ();
+    }
+    finally
+    {
+      synchronized (this.pollLock)
+      {
+        this.lastPollNanos = System.nanoTime ();
+        this.nextPoll = null;
+        scheduleNextPoll ();
+      }
+    }
   }
-
-  protected void fireWatchdogStop ()
+  
+  private void stopMainRequestLoop ()
   {
-    final Set<MidiDeviceListener> midiDeviceListenersCopy = getMidiDeviceListenersCopy ();
-    for (final MidiDeviceListener l : midiDeviceListenersCopy)
-      if (l instanceof MidiDeviceWatchdogListener)
-        ((MidiDeviceWatchdogListener) l).watchdogStop ();
+    synchronized (this.pollLock)
+    {
+      this.nextPoll = null;
+    }
+    LOG.log (Level.INFO, "Terminated Main Request Loop on Alesis Quadraverb GT.");
   }
-
+  
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // QVGT MAIN REQUEST LOOP
+  // ADAPTIVE POLL PERIOD
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  /** The default minimum period between Edit-Buffer requests (in milliseconds).
+   * 
+   * @see #setPollPeriodsMs
+   * 
+   */
+  public final static long DEFAULT_MINIMUM_POLL_PERIOD_MS = 200L;
+  
+  /** The default maximum period between Edit-Buffer requests (in milliseconds).
+   * 
+   * @see #setPollPeriodsMs
+   * 
+   */
+  public final static long DEFAULT_MAXIMUM_POLL_PERIOD_MS = 2000L;
+  
+  /** The duration (in milliseconds) of the window of fast polling after a local change or an incoming Program Change.
+   * 
+   */
+  public final static long FAST_POLL_WINDOW_MS = 3000L;
+  
+  private final Object pollLock = new Object ();
+  
+  private volatile long minimumPollPeriodMs = MidiDevice_QVGT.DEFAULT_MINIMUM_POLL_PERIOD_MS;
+  
+  private volatile long maximumPollPeriodMs = MidiDevice_QVGT.DEFAULT_MAXIMUM_POLL_PERIOD_MS;
+  
+  private long pollPeriodMs = MidiDevice_QVGT.DEFAULT_MINIMUM_POLL_PERIOD_MS;
+  
+  private long fastPollDeadlineNanos = System.nanoTime ();
+  
+  private long lastPollNanos = System.nanoTime ();
+  
+  private ScheduledFuture<?> nextPoll = null;
+  
+  /** Returns the minimum period between Edit-Buffer requests (in milliseconds).
+   * 
+   * @return The minimum period between Edit-Buffer requests (in milliseconds).
+   * 
+   * @see #setPollPeriodsMs
+   * 
+   */
+  public final long getMinimumPollPeriodMs ()
+  {
+    return this.minimumPollPeriodMs;
+  }
+  
+  /** Returns the maximum period between Edit-Buffer requests (in milliseconds).
+   * 
+   * @return The maximum period between Edit-Buffer requests (in milliseconds).
+   * 
+   * @see #setPollPeriodsMs
+   * 
+   */
+  public final long getMaximumPollPeriodMs ()
+  {
+    return this.maximumPollPeriodMs;
+  }
+  
+  /** Sets the minimum and maximum periods between Edit-Buffer requests (in milliseconds).
+   * 
+   * <p>
+   * The Main Request Loop polls the Edit Buffer at the minimum period for a while
+   * (see {@link #FAST_POLL_WINDOW_MS}) after each local change ({@link #put})
+   * and each incoming Program Change, as well as after each change in the Edit Buffer (e.g., from the front panel).
+   * Once outside that window, the period is doubled on each identical Edit-Buffer data dump,
+   * up to the maximum period.
+   * 
+   * @param minimumPollPeriodMs The minimum period, strictly positive.
+   * @param maximumPollPeriodMs The maximum period, not smaller than the minimum period.
+   * 
+   * @throws IllegalArgumentException If the minimum period is zero or negative,
+   *                                    or exceeds the maximum period.
+   * 
+   * @see #DEFAULT_MINIMUM_POLL_PERIOD_MS
+   * @see #DEFAULT_MAXIMUM_POLL_PERIOD_MS
+   * 
+   */
+  public final void setPollPeriodsMs (final long minimumPollPeriodMs, final long maximumPollPeriodMs)
+  {
+    if (minimumPollPeriodMs <= 0 || maximumPollPeriodMs < minimumPollPeriodMs)
+      throw new IllegalArgumentException ();
+    synchronized (this.pollLock)
+    {
+      this.minimumPollPeriodMs = minimumPollPeriodMs;
+      this.maximumPollPeriodMs = maximumPollPeriodMs;
+      this.pollPeriodMs = Math.max (minimumPollPeriodMs, Math.min (maximumPollPeriodMs, this.pollPeriodMs));
+      if (this.nextPoll != null)
+        scheduleNextPoll ();
+    }
+  }
+  
+  /** Opens (or extends) the window of fast polling, and advances the next poll (if applicable).
+   * 
+   * <p>
+   * Invoked upon local changes and incoming Program Changes.
+   * 
+   * @see #FAST_POLL_WINDOW_MS
+   * 
+   */
+  private void startFastPolling ()
+  {
+    synchronized (this.pollLock)
+    {
+      this.fastPollDeadlineNanos = System.nanoTime () + MidiDevice_QVGT.FAST_POLL_WINDOW_MS * 1000000L;
+      if (this.pollPeriodMs != this.minimumPollPeriodMs)
+      {
+        this.pollPeriodMs = this.minimumPollPeriodMs;
+        if (this.nextPoll != null)
+          scheduleNextPoll ();
+      }
+    }
+  }
+  
+  /** Adapts the poll period upon reception of an Edit-Buffer data dump.
+   * 
+   * @param identical Whether the data dump was identical to the previous one.
+   * 
+   */
+  private void onEditBufferPolled (final boolean identical)
+  {
+    synchronized (this.pollLock)
+    {
+      if (! identical || System.nanoTime () - this.fastPollDeadlineNanos < 0)
+        this.pollPeriodMs = this.minimumPollPeriodMs;
+      else
+        this.pollPeriodMs = Math.min (this.maximumPollPeriodMs, 2 * this.pollPeriodMs);
+    }
+  }
+  
+  /** Schedules the next poll at the (current) poll period after the last one,
+   *  replacing the pending poll if that is scheduled later.
+   * 
+   * <p>
+   * The caller must hold the poll lock.
+   * 
+   */
+  private void scheduleNextPoll ()
+  {
+    final long delayNanos = Math.max (0L, this.lastPollNanos + this.pollPeriodMs * 1000000L - System.nanoTime ());
+    if (this.nextPoll != null)
+    {
+      if (this.nextPoll.getDelay (TimeUnit.NANOSECONDS) <= delayNanos || ! this.nextPoll.cancel (false))
+        return;
+    }
+    this.nextPoll = this.qvgtScheduledTasks.schedule (this::pollEditBuffer, delayNanos, TimeUnit.NANOSECONDS);
+  }
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // QVGT WATCHDOG
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  private volatile boolean watchdogStatus = false;
+
+  private final Object watchdogLock = new Object ();
+  
+  private long watchdogDeadlineNanos = System.nanoTime ();
+  
+  private ScheduledFuture<?> watchdogTimeout = null;
+  
+  private boolean watchdogSuspended = false;
+  
+  /** Returns the time (in milliseconds) after the last data dump received at which the watchdog fails.
+   * 
+   * @return The time (in milliseconds) after the last data dump received at which the watchdog fails.
+   * 
+   */
+  private long getWatchdogTimeoutMs ()
+  {
+    return Math.max (2000L, 2 * this.maximumPollPeriodMs);
+  }
+  
+  private void startWatchdog ()
+  {
+    LOG.log (Level.INFO, "Starting Watchdog on Alesis Quadraverb GT.");
+    fireWatchdogStart ();
+  }
+  
+  /** Re-arms the watchdog deadline upon reception of a data dump, and reports watchdog success if applicable.
+   * 
+   * <p>
+   * At most a single timeout task is pending at any time;
+   * instead of being rescheduled upon each re-arm,
+   * it checks the (then current) deadline once it runs.
+   * 
+   */
+  private void rearmWatchdog ()
+  {
+    final long timeoutMs = getWatchdogTimeoutMs ();
+    synchronized (this.watchdogLock)
+    {
+      this.watchdogDeadlineNanos = System.nanoTime () + timeoutMs * 1000000L;
+      if (this.watchdogTimeout == null)
+        this.watchdogTimeout = this.qvgtScheduledTasks.schedule (this::onWatchdogTimeout, timeoutMs, TimeUnit.MILLISECONDS);
+      if (this.watchdogTimeout == null || this.watchdogStatus)
+        return;
+      this.watchdogStatus = true;
+    }
+    fireWatchdogSuccess ();
+  }
+  
+  private void onWatchdogTimeout ()
+  {
+    synchronized (this.watchdogLock)
+    {
+      final long remainingNanos = this.watchdogDeadlineNanos - System.nanoTime ();
+      if (remainingNanos > 0)
+      {
+        this.watchdogTimeout = this.qvgtScheduledTasks.schedule (this::onWatchdogTimeout, remainingNanos, TimeUnit.NANOSECONDS);
+        return;
+      }
+      this.watchdogTimeout = null;
+      if (this.watchdogSuspended || ! this.watchdogStatus)
+        return;
+      this.watchdogStatus = false;
+    }
+    fireWatchdogFail ();
+  }
+  
+  /** Suspends the watchdog, for instance during a bulk upload (in which Edit-Buffer polling is suspended).
+   * 
+   * <p>
+   * While suspended, the watchdog does not fail, but it does report success upon reception of a data dump.
+   * 
+   * @see #resumeWatchdog
+   * 
+   */
+  private void suspendWatchdog ()
+  {
+    synchronized (this.watchdogLock)
+    {
+      this.watchdogSuspended = true;
+    }
+  }
+  
+  /** Resumes a suspended watchdog, granting the device a full timeout (from now) to send its next data dump.
+   * 
+   * @see #suspendWatchdog
+   * 
+   */
+  private void resumeWatchdog ()
+  {
+    final long timeoutMs = getWatchdogTimeoutMs ();
+    synchronized (this.watchdogLock)
+    {
+      if (! this.watchdogSuspended)
+        return;
+      this.watchdogSuspended = false;
+      this.watchdogDeadlineNanos = System.nanoTime () + timeoutMs * 1000000L;
+      if (this.watchdogTimeout == null && this.watchdogStatus)
+        this.watchdogTimeout = this.qvgtScheduledTasks.schedule (this::onWatchdogTimeout, timeoutMs, TimeUnit.MILLISECONDS);
+    }
+  }
+  
+  private void stopWatchdog ()
+  {
+    synchronized (this.watchdogLock)
+    {
+      this.watchdogTimeout = null;
+      this.watchdogStatus = false;
+      this.watchdogSuspended = false;
+    }
+    fireWatchdogStop ();
+    LOG.log (Level.INFO, "Terminated Watchdog on Alesis Quadraverb GT.");
+  }
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // QVGT WATCHDOG LISTENERS
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  public static interface MidiDeviceWatchdogListener
+    extends MidiDeviceListener
+  {
+    void watchdogStart ();
+    void watchdogStop ();
+    void watchdogFail ();
+    void watchdogSuccess ();
+  }
+
+  protected void fireWatchdogStart ()
+  {
+    final Set<MidiDeviceListener> midiDeviceListenersCopy = getMidiDeviceListenersCopy ();
+    for (final MidiDeviceListener l : midiDeviceListenersCopy)
+      if (l instanceof MidiDeviceWatchdogListener)
+        ((MidiDeviceWatchdogListener) l).watchdogStart ();
+  }
+
+  protected void fireWatchdogStop ()
+  {
+    final Set<MidiDeviceListener> midiDeviceListenersCopy = getMidiDeviceListenersCopy ();
+    for (final MidiDeviceListener l : midiDeviceListenersCopy)
+      if (l instanceof MidiDeviceWatchdogListener)
+        ((MidiDeviceWatchdogListener) l).watchdogStop ();
+  }
+
   protected void fireWatchdogFail ()
   {
     final Set<MidiDeviceListener> midiDeviceListenersCopy = getMidiDeviceListenersCopy ();
@@ -5460,7 +6301,7 @@ public class MidiDevice_QVGT
   {
     if (patch == null)
       throw new IllegalArgumentException ();
-    final byte[] rawMidiMessage = MidiUtils_QVGT.createMidiSysExMessage_QVGT_DataDump (patch.getEncodedBytes (), programNumber);
+    final byte[] rawMidiMessage = MidiUtils_QVGT.createMidiSysExMessage_QVGT_DataDump (patch.getEncodedBytesNoCopy (), programNumber);
     // XXX The following should work as well!! XXX
     //sendMidiSysEx ((byte) 0x03 /* XXX MUST BE DONE DIFFERENTLY IN SUPER CLASS!! XXX */, rawMidiMessage);
     getMidiService ().sendRawMidiMessage (rawMidiMessage);
@@ -5468,86 +6309,1599 @@ public class MidiDevice_QVGT
 
   private void sendMidiSysExMessage_QGVT_DumpRequest (final int programNumber)
   {
-    final byte[] rawMidiMessage = MidiUtils_QVGT.createMidiSysExMessage_QVGT_DumpRequest (programNumber);
-    // XXX The following should work as well!! XXX
-    //sendMidiSysEx ((byte) 0x03 /* XXX MUST BE DONE DIFFERENTLY IN SUPER CLASS!! XXX */, rawMidiMessage);
-    getMidiService ().sendRawMidiMessage (rawMidiMessage);
+    final byte[] rawMidiMessage = MidiUtils_QVGT.createMidiSysExMessage_QVGT_DumpRequest (programNumber);
+    // XXX The following should work as well!! XXX
+    //sendMidiSysEx ((byte) 0x03 /* XXX MUST BE DONE DIFFERENTLY IN SUPER CLASS!! XXX */, rawMidiMessage);
+    getMidiService ().sendRawMidiMessage (rawMidiMessage);
+  }
+
+  private void sendMidiSysExMessage_QGVT_DumpRequest_EditBuffer ()
+  {
+    final byte[] rawMidiMessage = MidiUtils_QVGT.createMidiSysExMessage_QVGT_DumpRequest_EditBuffer ();
+    // XXX The following should work as well!! XXX
+    //sendMidiSysEx ((byte) 0x03 /* XXX MUST BE DONE DIFFERENTLY IN SUPER CLASS!! XXX */, rawMidiMessage);
+    // Record the request before sending it; its reply may arrive before the send returns.
+    onEditBufferRequestSent ();
+    getMidiService ().sendRawMidiMessage (rawMidiMessage);
+  }
+  
+  private void sendMidiSysExMessage_QGVT_DumpRequest_AllPrograms ()
+  {
+    final byte[] rawMidiMessage = MidiUtils_QVGT.createMidiSysExMessage_QVGT_DumpRequest_AllPrograms ();
+    getMidiService ().sendRawMidiMessage (rawMidiMessage);
+  }
+  
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // MIDI SERVICE [AbstractMidiDevice]
+  // TX HANDLING
+  //
+  // EDITING QUEUE
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  /** The number of bytes per second on a (DIN) MIDI wire: 31250 baud at 10 bits per byte.
+   * 
+   */
+  public final static int MIDI_WIRE_BYTES_PER_SECOND = 3125;
+  
+  /** The fraction of the MIDI wire bandwidth available to MIDI-Edit messages.
+   * 
+   * <p>
+   * The remainder is left for (a.o.) dump requests and data dumps.
+   * 
+   */
+  public final static double EDITING_WIRE_BUDGET = 0.5;
+  
+  /** The minimum interval (in nanoseconds) between successive MIDI-Edit messages from the queue.
+   * 
+   * @see #MIDI_WIRE_BYTES_PER_SECOND
+   * @see #EDITING_WIRE_BUDGET
+   * 
+   */
+  private final static long EDITING_MESSAGE_INTERVAL_NANOS =
+    (long) (MidiUtils_QVGT.MIDI_EDITING_MESSAGE_SIZE * 1000000000.0
+      / (MidiDevice_QVGT.MIDI_WIRE_BYTES_PER_SECOND * MidiDevice_QVGT.EDITING_WIRE_BUDGET));
+  
+  private final static ParameterDescriptor_QVGT.Function_QVGT[] FUNCTIONS = ParameterDescriptor_QVGT.Function_QVGT.values ();
+  
+  /** The pending MIDI-Edit values, keyed by function and page, in order of first (pending) write.
+   * 
+   */
+  private final Map<Integer, Integer> editingQueue = new LinkedHashMap<> ();
+  
+  private long editingNextSendNanos = System.nanoTime ();
+  
+  private ScheduledFuture<?> editingDrain = null;
+  
+  /** Queues a MIDI-Edit message for given function, page and value.
+   * 
+   * <p>
+   * Pending writes to the same function and page are conflated (the last write wins),
+   * and the queue is drained at a rate of at most {@link #EDITING_WIRE_BUDGET} of the MIDI wire bandwidth.
+   * Hence, rapid successions of writes to a parameter (like from dragging a slider)
+   * do not back up on the MIDI wire, yet the device always converges to the last value written.
+   * 
+   * <p>
+   * If the scheduler is not running, the queue is drained immediately.
+   * 
+   * @param function The function, non-{@code null}.
+   * @param page     The page, between 0 and 127 inclusive.
+   * @param value    The value, between 0 and 65535.
+   * 
+   * @throws IllegalArgumentException If the function is {@code null} or the page is out of range.
+   * 
+   * @see #MIDI_WIRE_BYTES_PER_SECOND
+   * 
+   */
+  private void queueMidiSysExMessage_QVGT_Editing
+  (final ParameterDescriptor_QVGT.Function_QVGT function, final int page, final int value)
+  {
+    if (function == null || page < 0 || page > 127)
+      throw new IllegalArgumentException ();
+    synchronized (this.editingQueue)
+    {
+      // Note: re-putting an existing key does not affect its position in the queue.
+      this.editingQueue.put ((function.ordinal () << 7) | page, value);
+      if (this.editingDrain == null)
+      {
+        final long delayNanos = Math.max (0L, this.editingNextSendNanos - System.nanoTime ());
+        this.editingDrain = this.qvgtScheduledTasks.schedule (this::drainEditingQueue, delayNanos, TimeUnit.NANOSECONDS);
+        if (this.editingDrain == null)
+          flushEditingQueue ();
+      }
+    }
+  }
+  
+  /** Sends the first pending MIDI-Edit message, and schedules the next one (if any) within the wire budget.
+   * 
+   */
+  private void drainEditingQueue ()
+  {
+    synchronized (this.editingQueue)
+    {
+      this.editingDrain = null;
+      if (this.editingQueue.isEmpty ())
+        return;
+      final Iterator<Map.Entry<Integer, Integer>> iterator = this.editingQueue.entrySet ().iterator ();
+      final Map.Entry<Integer, Integer> entry = iterator.next ();
+      iterator.remove ();
+      sendEditingQueueEntry (entry.getKey (), entry.getValue ());
+      if (! this.editingQueue.isEmpty ())
+        this.editingDrain = this.qvgtScheduledTasks.schedule (this::drainEditingQueue,
+          Math.max (0L, this.editingNextSendNanos - System.nanoTime ()), TimeUnit.NANOSECONDS);
+      if (this.editingDrain == null)
+        flushEditingQueue ();
+    }
+  }
+  
+  /** Sends all pending MIDI-Edit messages immediately.
+   * 
+   * <p>
+   * Invoked before sending other messages to the device, in order to retain the order of writes.
+   * 
+   */
+  private void flushEditingQueue ()
+  {
+    synchronized (this.editingQueue)
+    {
+      if (this.editingDrain != null)
+      {
+        this.editingDrain.cancel (false);
+        this.editingDrain = null;
+      }
+      for (final Map.Entry<Integer, Integer> entry : this.editingQueue.entrySet ())
+        sendEditingQueueEntry (entry.getKey (), entry.getValue ());
+      this.editingQueue.clear ();
+    }
+  }
+  
+  /** Flushes the queue upon stopping the scheduler, dropping pending messages that cannot be sent.
+   * 
+   */
+  private void stopEditingQueue ()
+  {
+    synchronized (this.editingQueue)
+    {
+      // Our drain task (if any) has been cancelled already.
+      this.editingDrain = null;
+      try
+      {
+        flushEditingQueue ();
+      }
+      catch (RuntimeException re)
+      {
+        LOG.log (Level.WARNING, "Dropped {0} pending MIDI-Edit messages upon stop.", this.editingQueue.size ());
+        this.editingQueue.clear ();
+      }
+    }
+  }
+  
+  private void sendEditingQueueEntry (final int key, final int value)
+  {
+    sendMidiSysExMessage_QVGT_Editing (MidiDevice_QVGT.FUNCTIONS[key >>> 7], key & 0x7F, value);
+    onEditSent (key);
+    markEditBufferImageStale ();
+    this.editingNextSendNanos = System.nanoTime () + MidiDevice_QVGT.EDITING_MESSAGE_INTERVAL_NANOS;
+  }
+  
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // MIDI SERVICE [AbstractMidiDevice]
+  // TX HANDLING
+  //
+  // OPTIMISTIC EDITING
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  private volatile boolean optimisticEditing = false;
+  
+  /** Returns whether optimistic editing is enabled.
+   * 
+   * @return Whether optimistic editing is enabled (default {@code false}).
+   * 
+   * @see #setOptimisticEditing
+   * 
+   */
+  public final boolean isOptimisticEditing ()
+  {
+    return this.optimisticEditing;
+  }
+  
+  /** Enables or disables optimistic editing.
+   * 
+   * <p>
+   * Without optimistic editing, a write to an Edit-Buffer (sub-)parameter is only sent to the device,
+   * and the new value shows up locally only after the next Edit-Buffer dump has been received from the device.
+   * 
+   * <p>
+   * With optimistic editing, the new value is also applied locally at once,
+   * both to the parameter itself and to the corresponding bytes of the (cached) Edit-Buffer {@link Patch_QGVT},
+   * and the edit is marked pending.
+   * The first Edit-Buffer dump requested after the MIDI-Edit message has been sent then either confirms the edit,
+   * or rolls it back to the value reported by the device,
+   * in which case the {@link MidiDeviceEditConflictListener}s are notified.
+   * Until then, Edit-Buffer dumps from the device are applied with the pending edits on top of them.
+   * 
+   * <p>
+   * Disabling optimistic editing discards all pending edits;
+   * the local values are reconciled with the next Edit-Buffer dump.
+   * 
+   * @param optimisticEditing Whether to enable optimistic editing.
+   * 
+   * @see #isOptimisticEditing
+   * 
+   */
+  public final void setOptimisticEditing (final boolean optimisticEditing)
+  {
+    this.optimisticEditing = optimisticEditing;
+    if (! optimisticEditing)
+      discardPendingEdits ();
+  }
+  
+  public static interface MidiDeviceEditConflictListener
+    extends MidiDeviceListener
+  {
+    void editConflict (String key, Object localValue, Object deviceValue);
+  }
+
+  protected void fireEditConflict (final String key, final Object localValue, final Object deviceValue)
+  {
+    final Set<MidiDeviceListener> midiDeviceListenersCopy = getMidiDeviceListenersCopy ();
+    for (final MidiDeviceListener l : midiDeviceListenersCopy)
+      if (l instanceof MidiDeviceEditConflictListener)
+        ((MidiDeviceEditConflictListener) l).editConflict (key, localValue, deviceValue);
+  }
+  
+  private static final class PendingEdit
+  {
+    
+    private final String key;
+    
+    private final Object value;
+    
+    private final byte[] bytes;
+    
+    private final int editingKey;
+    
+    /** Whether the MIDI-Edit message has been sent.
+     * 
+     */
+    private boolean sent = false;
+    
+    /** The time (in nanoseconds) at which the MIDI-Edit message was sent; only meaningful if {@link #sent}.
+     * 
+     */
+    private long sentNanos = 0L;
+    
+    private PendingEdit (final String key, final Object value, final byte[] bytes, final int editingKey)
+    {
+      this.key = key;
+      this.value = value;
+      this.bytes = bytes;
+      this.editingKey = editingKey;
+    }
+    
+  }
+  
+  /** The pending edits, keyed by parameter name, in order of (last) write.
+   * 
+   * <p>
+   * Also serves as lock for {@link #editBufferFromDevice} and the outstanding Edit-Buffer dump requests.
+   * 
+   */
+  private final Map<String, PendingEdit> pendingEdits = new LinkedHashMap<> ();
+  
+  /** The last Edit-Buffer from the device, i.e., without pending edits.
+   * 
+   */
+  private Patch_QGVT editBufferFromDevice = null;
+  
+  /** The time (in milliseconds) after which an unanswered Edit-Buffer dump request is taken as lost.
+   * 
+   */
+  private final static long EDIT_BUFFER_REQUEST_TIMEOUT_MS = 1500L;
+  
+  /** The maximum number of outstanding Edit-Buffer dump requests kept for matching replies.
+   * 
+   */
+  private final static int EDIT_BUFFER_MAXIMUM_OUTSTANDING_REQUESTS = 8;
+  
+  /** The times (in nanoseconds) at which the outstanding Edit-Buffer dump requests were sent, in a ring buffer, oldest first.
+   * 
+   * <p>
+   * The device answers dump requests in order;
+   * each Edit-Buffer dump received is matched with the oldest outstanding request.
+   * Lost requests can only cause a dump to be matched with a request sent <i>earlier</i>
+   * than the one actually answered.
+   * If the ring is full, the oldest request is taken as lost and dropped in favor of the new one.
+   * 
+   * @see #onEditBufferRequestSent
+   * @see #onEditBufferReply
+   * @see #resetEditBufferRequests
+   * 
+   */
+  private final long[] editBufferRequestNanos = new long[MidiDevice_QVGT.EDIT_BUFFER_MAXIMUM_OUTSTANDING_REQUESTS];
+  
+  private int editBufferRequestsHead = 0;
+  
+  private int editBufferRequestsOutstanding = 0;
+  
+  /** Applies a write to an Edit-Buffer sub-parameter locally and marks it pending, if optimistic editing is enabled.
+   * 
+   * <p>
+   * Writes that cannot be represented in the cached Edit-Buffer are silently left to the next Edit-Buffer dump.
+   * 
+   * @param parameterDescriptor_QVGT The parameter descriptor, non-{@code null}.
+   * @param value                    The value written.
+   * @param convertedValue           The value written, converted for the device, non-{@code null}.
+   * @param editingKey               The key of the MIDI-Edit message in the editing queue.
+   * 
+   * @see #setOptimisticEditing
+   * 
+   */
+  private void applyEditOptimistically
+  ( final ParameterDescriptor_QVGT parameterDescriptor_QVGT,
+    final Object value,
+    final byte[] convertedValue,
+    final int editingKey)
+  {
+    if (! this.optimisticEditing || ! MidiDevice_QVGT.EDIT_BUFFER_NAME.equals (parameterDescriptor_QVGT.getParentKey ()))
+      return;
+    final SubParameterPlan subParameterPlan = this.subParameterPlans.get (MidiDevice_QVGT.EDIT_BUFFER_NAME);
+    final Object editBuffer = super.get (MidiDevice_QVGT.EDIT_BUFFER_NAME);
+    if (subParameterPlan == null || ! (editBuffer instanceof Patch_QGVT))
+      return;
+    final String key = parameterDescriptor_QVGT.getParameterName ();
+    final byte[] decodedBytes = ((Patch_QGVT) editBuffer).getDecodedBytes ();
+    if (! subParameterPlan.insert (key, convertedValue, decodedBytes))
+      return;
+    final Patch_QGVT patch;
+    try
+    {
+      patch = Patch_QGVT.fromBytes (decodedBytes);
+    }
+    catch (IllegalArgumentException iae)
+    {
+      return;
+    }
+    synchronized (this.pendingEdits)
+    {
+      // Re-insert in order to keep the pending edits in order of (last) write.
+      this.pendingEdits.remove (key);
+      this.pendingEdits.put (key, new PendingEdit (key, value, convertedValue.clone (), editingKey));
+    }
+    beginParameterBatch ();
+    try
+    {
+      onParameterValueReadFromDevice (MidiDevice_QVGT.EDIT_BUFFER_NAME, null, patch);
+    }
+    finally
+    {
+      endParameterBatch ();
+    }
+  }
+  
+  /** Marks the pending edits for given MIDI-Edit message as sent.
+   * 
+   * @param editingKey The key of the MIDI-Edit message in the editing queue.
+   * 
+   */
+  private void onEditSent (final int editingKey)
+  {
+    final long sentNanos = System.nanoTime ();
+    synchronized (this.pendingEdits)
+    {
+      for (final PendingEdit pendingEdit : this.pendingEdits.values ())
+        if (pendingEdit.editingKey == editingKey && ! pendingEdit.sent)
+        {
+          pendingEdit.sent = true;
+          pendingEdit.sentNanos = sentNanos;
+        }
+    }
+  }
+  
+  /** Records the (imminent) sending of an Edit-Buffer dump request.
+   * 
+   */
+  private void onEditBufferRequestSent ()
+  {
+    synchronized (this.pendingEdits)
+    {
+      // If too many requests remain unanswered, the oldest one is (long) lost; drop it.
+      if (this.editBufferRequestsOutstanding == this.editBufferRequestNanos.length)
+      {
+        this.editBufferRequestsHead = (this.editBufferRequestsHead + 1) % this.editBufferRequestNanos.length;
+        this.editBufferRequestsOutstanding--;
+      }
+      this.editBufferRequestNanos[(this.editBufferRequestsHead + this.editBufferRequestsOutstanding)
+        % this.editBufferRequestNanos.length] = System.nanoTime ();
+      this.editBufferRequestsOutstanding++;
+    }
+  }
+  
+  /** Forgets all outstanding Edit-Buffer dump requests.
+   * 
+   * <p>
+   * Invoked when the main request loop starts, so requests from a previous run are not matched with new dumps.
+   * 
+   */
+  private void resetEditBufferRequests ()
+  {
+    synchronized (this.pendingEdits)
+    {
+      this.editBufferRequestsHead = 0;
+      this.editBufferRequestsOutstanding = 0;
+    }
+  }
+  
+  /** Processes the reception of an Edit-Buffer dump, matching it with the oldest outstanding request.
+   * 
+   * <p>
+   * An outstanding request older than {@link #EDIT_BUFFER_REQUEST_TIMEOUT_MS} is taken as lost;
+   * it is removed, but the dump is reported as answering an unknown request,
+   * since it may still be the (late) reply to that request.
+   * 
+   * @return The time (in nanoseconds) at which the dump was requested, 0 if unknown.
+   * 
+   */
+  private long onEditBufferReply ()
+  {
+    synchronized (this.pendingEdits)
+    {
+      if (this.editBufferRequestsOutstanding == 0)
+        return 0L;
+      final long requestNanos = this.editBufferRequestNanos[this.editBufferRequestsHead];
+      this.editBufferRequestsHead = (this.editBufferRequestsHead + 1) % this.editBufferRequestNanos.length;
+      this.editBufferRequestsOutstanding--;
+      if (System.nanoTime () - requestNanos > MidiDevice_QVGT.EDIT_BUFFER_REQUEST_TIMEOUT_MS * 1000000L)
+        return 0L;
+      return requestNanos;
+    }
+  }
+  
+  /** Discards all pending edits (without notification).
+   * 
+   * <p>
+   * Invoked when the Edit-Buffer is replaced as a whole (e.g., upon a program change),
+   * upon disabling optimistic editing, and upon stopping the device.
+   * 
+   */
+  private void discardPendingEdits ()
+  {
+    synchronized (this.pendingEdits)
+    {
+      this.pendingEdits.clear ();
+    }
+  }
+  
+  /** Processes an Edit-Buffer dump from the device, reconciling it with the pending edits (if any).
+   * 
+   * <p>
+   * Pending edits sent before the dump was requested are confirmed (if the device holds the value written)
+   * or rolled back (otherwise); in the latter case, the conflict is reported to the listeners
+   * after the dump has been applied.
+   * A dump answering a request sent before the edit (or of which the request is unknown)
+   * neither confirms nor rolls back the edit.
+   * The remaining pending edits are applied on top of the dump.
+   * 
+   * @param patch        The Edit-Buffer from the device,
+   *                       {@code null} if the dump is identical to the previous one from the device.
+   * @param requestNanos The time (in nanoseconds) at which the dump was requested, 0 if unknown.
+   * 
+   * @see #setOptimisticEditing
+   * @see MidiDeviceEditConflictListener
+   * 
+   */
+  private void onEditBufferFromDevice (final Patch_QGVT patch, final long requestNanos)
+  {
+    final SubParameterPlan subParameterPlan = this.subParameterPlans.get (MidiDevice_QVGT.EDIT_BUFFER_NAME);
+    final Map<PendingEdit, byte[]> conflicts = new LinkedHashMap<> ();
+    Patch_QGVT patchToApply = patch;
+    synchronized (this.pendingEdits)
+    {
+      if (patch != null)
+        this.editBufferFromDevice = patch;
+      final Patch_QGVT devicePatch = this.editBufferFromDevice;
+      if (! this.pendingEdits.isEmpty () && devicePatch != null && subParameterPlan != null)
+      {
+        final byte[] deviceBytes = devicePatch.getDecodedBytesNoCopy ();
+        byte[] mergedBytes = null;
+        final Iterator<PendingEdit> iterator = this.pendingEdits.values ().iterator ();
+        while (iterator.hasNext ())
+        {
+          final PendingEdit pendingEdit = iterator.next ();
+          if (pendingEdit.sent && requestNanos != 0L && requestNanos - pendingEdit.sentNanos > 0L)
+          {
+            // The dump was requested after the edit was sent, hence reflects the edit; confirm or roll back.
+            iterator.remove ();
+            final byte[] deviceValue = subParameterPlan.extractBytes (pendingEdit.key, deviceBytes);
+            if (! Arrays.equals (deviceValue, pendingEdit.bytes))
+              conflicts.put (pendingEdit, deviceValue);
+          }
+          else
+          {
+            if (mergedBytes == null)
+              mergedBytes = devicePatch.getDecodedBytes ();
+            subParameterPlan.insert (pendingEdit.key, pendingEdit.bytes, mergedBytes);
+          }
+        }
+        if (mergedBytes != null)
+        {
+          try
+          {
+            patchToApply = Patch_QGVT.fromBytes (mergedBytes);
+          }
+          catch (IllegalArgumentException iae)
+          {
+            this.pendingEdits.clear ();
+            patchToApply = devicePatch;
+          }
+        }
+        else if (patch == null && ! conflicts.isEmpty ())
+          patchToApply = devicePatch;
+      }
+    }
+    if (patchToApply != null)
+    {
+      beginParameterBatch ();
+      try
+      {
+        onMidiDataDumpFromDevice (MidiDevice_QVGT.EDIT_BUFFER_PROGRAM_NUMBER, patchToApply);
+      }
+      finally
+      {
+        endParameterBatch ();
+      }
+    }
+    for (final Map.Entry<PendingEdit, byte[]> conflict : conflicts.entrySet ())
+    {
+      final PendingEdit pendingEdit = conflict.getKey ();
+      Object deviceValue = null;
+      if (conflict.getValue () != null)
+        try
+        {
+          deviceValue = getParameterDescriptor (pendingEdit.key).convertFromDevice (conflict.getValue ());
+        }
+        catch (IllegalArgumentException iae)
+        {
+          deviceValue = null;
+        }
+      LOG.log (Level.INFO, "Rolled back optimistic edit of {0}: {1} -> {2}.",
+        new Object[]{pendingEdit.key, pendingEdit.value, deviceValue});
+      fireEditConflict (pendingEdit.key, pendingEdit.value, deviceValue);
+    }
+    if (requestNanos != 0L)
+      markEditBufferImageCurrent (requestNanos);
+  }
+  
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // MIDI SERVICE [AbstractMidiDevice]
+  // RX HANDLING
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  @Override
+  protected void onMidiRxProgramChange (final int midiChannel, final int patch)
+  {
+    super.onMidiRxProgramChange (midiChannel, patch);
+    startFastPolling ();
+    discardPendingEdits ();
+    markEditBufferImageStale ();
+    beginParameterBatch ();
+    try
+    {
+      for (final ParameterDescriptor_QVGT parameterDescriptor_QVGT : this.programChangeParameters)
+        onParameterReadFromDevice (parameterDescriptor_QVGT.getParameterName (), new byte[]{(byte) patch});
+    }
+    finally
+    {
+      endParameterBatch ();
+    }
+    onProgramChange (patch);
+  }
+
+//  @Override
+//  protected void onMidiRxControlChange (final int midiChannel, final int controller, final int value)
+//  {
+//    super.onMidiRxControlChange (midiChannel, controller, value);
+//    if (controller < 0 || controller > 127)
+//      throw new RuntimeException ();
+//    if (value < 0 || value > 127)
+//      throw new RuntimeException ();
+//    final Set<ParameterDescriptor_RolandBoss> parameters = this.controlChangeParameters.get ((byte) controller);
+//    if (parameters != null)
+//      for (final ParameterDescriptor_RolandBoss parameter : parameters)
+//        onParameterReadFromDevice (parameter.getParameterName (), new byte[]{(byte) value});
+//  }
+
+  @Override
+  protected void onMidiRxSysEx (final byte vendorId, final byte[] rawMidiMessage)
+  {
+    super.onMidiRxSysEx (vendorId, rawMidiMessage);
+    // LOG.log (Level.INFO, "onMidiRxSysEx, message={0}", HexUtils.bytesToHex (rawMidiMessage));
+    if (rawMidiMessage.length < 7                                   // Allow for OpCode; mandatory
+      || (rawMidiMessage[0] & 0xFF) != 0xF0                         // System Exclusive Status
+      || (rawMidiMessage[1] & 0xFF) != 0x00                         // 0x00000E: Alesis vendor ID
+      || (rawMidiMessage[2] & 0xFF) != 0x00                         // 0x00000E: Alesis vendor ID
+      || (rawMidiMessage[3] & 0xFF) != 0x0E                         // 0x00000E: Alesis vendor ID
+      || (rawMidiMessage[4] & 0xFF) != 0x07                         // Quadraverb GT device ID
+      || (rawMidiMessage[rawMidiMessage.length - 1] &0xFF) != 0xF7) // End-Of-Exclusive
+    {
+      LOG.log (Level.WARNING, "Dropped unknown SysEx message: {0}.", HexUtils.bytesToHex (rawMidiMessage));
+      return;
+    }
+    if (rawMidiMessage.length == 155
+      && (rawMidiMessage[5] & 0xFF) == 0x02 // OpCode:
+      && (rawMidiMessage[6] >= 0 && rawMidiMessage[6] <= 100)) // Program Number
+    {
+      final int programNumber = rawMidiMessage[6];
+      rearmWatchdog (); // To please our watchdog...
+      final long editBufferRequestNanos;
+      if (programNumber == MidiDevice_QVGT.EDIT_BUFFER_PROGRAM_NUMBER)
+        editBufferRequestNanos = onEditBufferReply ();
+      else
+      {
+        editBufferRequestNanos = 0L;
+        onProgramReadback (programNumber, rawMidiMessage);
+      }
+      final boolean identical = isIdenticalDump (programNumber, rawMidiMessage, 7);
+      if (programNumber == MidiDevice_QVGT.EDIT_BUFFER_PROGRAM_NUMBER)
+        onEditBufferPolled (identical);
+      if (identical)
+      {
+        if (programNumber < MidiDevice_QVGT.EDIT_BUFFER_PROGRAM_NUMBER)
+          onProgramDumpFromDevice (programNumber, null); // Already in the program cache.
+        else
+          onEditBufferFromDevice (null, editBufferRequestNanos); // May still confirm or roll back pending edits.
+        return;
+      }
+      final Patch_QGVT patch;
+      try
+      {
+        // Decode straight from the message; no intermediate copies.
+        // Intern, so (polled) programs with equal contents share a single instance.
+        patch = Patch_QGVT.fromEncodedBytes (rawMidiMessage, 7).intern ();
+      }
+      catch (IllegalArgumentException iae)
+      {
+        LOG.log (Level.WARNING, "Dropped illegal Data Dump message: {0}.", HexUtils.bytesToHex (rawMidiMessage));
+        // Do not take the next (identical) dump for this program as already processed.
+        forgetIdenticalDump (programNumber);
+        return;
+      }
+      if (programNumber < MidiDevice_QVGT.EDIT_BUFFER_PROGRAM_NUMBER)
+      {
+        onProgramDumpFromDevice (programNumber, patch);
+        if (! this.dataDumpParameters.containsKey (programNumber))
+          return;
+      }
+      else
+      {
+        onEditBufferFromDevice (patch, editBufferRequestNanos);
+        return;
+      }
+      beginParameterBatch ();
+      try
+      {
+        onMidiDataDumpFromDevice (programNumber, patch);
+      }
+      finally
+      {
+        endParameterBatch ();
+      }
+    }
+    else
+      LOG.log (Level.WARNING, "Dropped unknown SysEx message with length {0}: {1}.",
+        new Object[]{rawMidiMessage.length, HexUtils.bytesToHex (rawMidiMessage)});
+  }
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // MIDI SERVICE [AbstractMidiDevice]
+  // RX HANDLING
+  //
+  // IDENTICAL DATA DUMP DETECTION
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  private final byte[][] lastEncodedDumps = new byte[MidiDevice_QVGT.EDIT_BUFFER_PROGRAM_NUMBER + 1][];
+  
+  private final AtomicLong identicalDumpHits = new AtomicLong ();
+  
+  private final AtomicLong identicalDumpMisses = new AtomicLong ();
+  
+  /** Checks whether the encoded data-dump payload for given program is identical to the one received last for that program.
+   * 
+   * <p>
+   * If not, the payload is remembered for the next comparison.
+   * 
+   * @param programNumber The program number, between 0 and 100 inclusive.
+   * @param rawMidiMessage The raw MIDI message holding the payload.
+   * @param offset         The offset of the encoded payload (of size {@link Patch_QGVT#ENCODED_PATCH_SIZE}) in the message.
+   * 
+   * @return Whether the payload is identical to the last one received for the program.
+   * 
+   */
+  private boolean isIdenticalDump (final int programNumber, final byte[] rawMidiMessage, final int offset)
+  {
+    synchronized (this.lastEncodedDumps)
+    {
+      byte[] lastEncodedDump = this.lastEncodedDumps[programNumber];
+      if (lastEncodedDump != null)
+      {
+        int i = 0;
+        while (i < Patch_QGVT.ENCODED_PATCH_SIZE && lastEncodedDump[i] == rawMidiMessage[offset + i])
+          i++;
+        if (i == Patch_QGVT.ENCODED_PATCH_SIZE)
+        {
+          this.identicalDumpHits.incrementAndGet ();
+          return true;
+        }
+      }
+      else
+      {
+        lastEncodedDump = new byte[Patch_QGVT.ENCODED_PATCH_SIZE];
+        this.lastEncodedDumps[programNumber] = lastEncodedDump;
+      }
+      System.arraycopy (rawMidiMessage, offset, lastEncodedDump, 0, Patch_QGVT.ENCODED_PATCH_SIZE);
+      this.identicalDumpMisses.incrementAndGet ();
+      return false;
+    }
+  }
+  
+  /** Forgets the remembered data-dump payload for given program, forcing its next data dump to be processed in full.
+   * 
+   * @param programNumber The program number, between 0 and 100 inclusive.
+   * 
+   */
+  private void forgetIdenticalDump (final int programNumber)
+  {
+    synchronized (this.lastEncodedDumps)
+    {
+      this.lastEncodedDumps[programNumber] = null;
+    }
+  }
+  
+  /** Forgets all remembered data-dump payloads, forcing the next data dump for each program to be processed in full.
+   * 
+   */
+  private void resetIdenticalDumps ()
+  {
+    synchronized (this.lastEncodedDumps)
+    {
+      Arrays.fill (this.lastEncodedDumps, null);
+    }
+  }
+  
+  /** Returns the number of data dumps received that were skipped because they were identical to the previous one.
+   * 
+   * @return The number of data dumps received that were skipped because they were identical to the previous one.
+   * 
+   * @see #getIdenticalDumpMisses
+   * 
+   */
+  public final long getIdenticalDumpHits ()
+  {
+    return this.identicalDumpHits.get ();
+  }
+  
+  /** Returns the number of data dumps received that were processed because they differed from the previous one.
+   * 
+   * @return The number of data dumps received that were processed because they differed from the previous one.
+   * 
+   * @see #getIdenticalDumpHits
+   * 
+   */
+  public final long getIdenticalDumpMisses ()
+  {
+    return this.identicalDumpMisses.get ();
+  }
+  
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // LIBRARIAN
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  /** The number of (stored) programs on the Alesis Quadraverb GT, numbered 0 through 99, inclusive.
+   * 
+   */
+  public final static int NUMBER_OF_PROGRAMS = 100;
+  
+  /** The time (in milliseconds) without progress after which a program fetch is considered stalled.
+   * 
+   * <p>
+   * A single data dump takes about 50 milliseconds on the MIDI wire.
+   * 
+   * @see #fetchAllPrograms
+   * 
+   */
+  public final static long PROGRAM_FETCH_STALL_TIMEOUT_MS = 1500L;
+  
+  /** The maximum number of attempts in a program fetch, including the initial all-programs request.
+   * 
+   * @see #fetchAllPrograms
+   * 
+   */
+  public final static int MAX_PROGRAM_FETCH_ATTEMPTS = 3;
+  
+  /** The pause (in milliseconds) between successive requests for individual missing programs.
+   * 
+   * <p>
+   * Chosen to slightly exceed the duration of a data dump on the MIDI wire,
+   * so as not to overrun the device.
+   * 
+   */
+  public final static long PROGRAM_REQUEST_SPACING_MS = 60L;
+  
+  /** A listener to the progress of a program fetch.
+   * 
+   * <p>
+   * Callbacks are invoked from the thread receiving MIDI messages or from the shared scheduler,
+   * and should return quickly.
+   * 
+   * @see #fetchAllPrograms
+   * 
+   */
+  public static interface ProgramFetchListener
+  {
+    
+    /** Notification of the reception of a program during a fetch.
+     * 
+     * @param program                 The program number (0 through 99, inclusive).
+     * @param patch                   The patch, non-{@code null}.
+     * @param numberOfProgramsFetched The number of programs fetched so far (including this one).
+     * 
+     */
+    void programFetched (int program, Patch_QGVT patch, int numberOfProgramsFetched);
+    
+    /** Notification of the successful completion of a fetch.
+     * 
+     * @param programs The programs, indexed by program number; a private copy of the program cache.
+     * 
+     */
+    void fetchCompleted (Patch_QGVT[] programs);
+    
+    /** Notification of the failure of a fetch, after exhausting all attempts, or upon stopping the device.
+     * 
+     * @param missingPrograms The program numbers not received, in ascending order.
+     * 
+     */
+    void fetchFailed (Set<Integer> missingPrograms);
+    
+  }
+  
+  private final Object librarianLock = new Object ();
+  
+  private final Patch_QGVT[] programCache = new Patch_QGVT[MidiDevice_QVGT.NUMBER_OF_PROGRAMS];
+  
+  private ProgramFetchListener programFetchListener = null;
+  
+  private final BitSet missingPrograms = new BitSet (MidiDevice_QVGT.NUMBER_OF_PROGRAMS);
+  
+  private int programFetchAttempts = 0;
+  
+  private long programFetchLastProgressNanos = System.nanoTime ();
+  
+  private ScheduledFuture<?> programFetchTimeout = null;
+  
+  /** Fetches all programs from the device into the program cache.
+   * 
+   * <p>
+   * Issues a single request for all programs, after which the device transmits its 100 programs back-to-back.
+   * Each incoming program is stored in the program cache and reported to the listener.
+   * If the transfer stalls (see {@link #PROGRAM_FETCH_STALL_TIMEOUT_MS}) with programs still missing,
+   * only the missing programs are requested again (individually),
+   * up to a total of {@link #MAX_PROGRAM_FETCH_ATTEMPTS} attempts.
+   * 
+   * <p>
+   * Polling of the Edit Buffer is suspended during the fetch.
+   * 
+   * @param listener The listener to the progress of the fetch, non-{@code null}.
+   * 
+   * @throws IllegalArgumentException If the listener is {@code null}.
+   * @throws RuntimeException         If this device is not running, or if a fetch or upload is already in progress.
+   * 
+   * @see #getCachedProgram
+   * @see #getCachedPrograms
+   * 
+   */
+  public final void fetchAllPrograms (final ProgramFetchListener listener)
+  {
+    if (listener == null)
+      throw new IllegalArgumentException ();
+    if (getStatus () == Status.STOPPED || getMidiService () == null || ! this.qvgtScheduledTasks.isRunning ())
+      throw new RuntimeException ();
+    synchronized (this.librarianLock)
+    {
+      if (this.programFetchListener != null || this.programUploadListener != null)
+        throw new RuntimeException ();
+      this.programFetchListener = listener;
+      this.missingPrograms.set (0, MidiDevice_QVGT.NUMBER_OF_PROGRAMS);
+      this.programFetchAttempts = 1;
+      this.programFetchLastProgressNanos = System.nanoTime ();
+      sendMidiSysExMessage_QGVT_DumpRequest_AllPrograms ();
+      this.programFetchTimeout = this.qvgtScheduledTasks.schedule (this::onProgramFetchTimeout,
+        MidiDevice_QVGT.PROGRAM_FETCH_STALL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+  }
+  
+  /** Returns whether a program fetch is in progress.
+   * 
+   * @return Whether a program fetch is in progress.
+   * 
+   * @see #fetchAllPrograms
+   * 
+   */
+  public final boolean isFetchingPrograms ()
+  {
+    synchronized (this.librarianLock)
+    {
+      return this.programFetchListener != null;
+    }
+  }
+  
+  /** Returns a program from the program cache.
+   * 
+   * <p>
+   * The program cache holds the last data dump received for each program,
+   * either through {@link #fetchAllPrograms} or otherwise.
+   * 
+   * @param program The program number, 0 through 99, inclusive.
+   * 
+   * @return The cached program, {@code null} if not (yet) received.
+   * 
+   * @throws IllegalArgumentException If the program number is out of range.
+   * 
+   */
+  public final Patch_QGVT getCachedProgram (final int program)
+  {
+    if (program < 0 || program >= MidiDevice_QVGT.NUMBER_OF_PROGRAMS)
+      throw new IllegalArgumentException ();
+    synchronized (this.librarianLock)
+    {
+      return this.programCache[program];
+    }
+  }
+  
+  /** Returns a copy of the program cache.
+   * 
+   * @return A copy of the program cache, indexed by program number, with {@code null} entries for programs not (yet) received.
+   * 
+   * @see #getCachedProgram
+   * 
+   */
+  public final Patch_QGVT[] getCachedPrograms ()
+  {
+    synchronized (this.librarianLock)
+    {
+      return this.programCache.clone ();
+    }
+  }
+  
+  /** Clears the program cache.
+   * 
+   */
+  public final void clearProgramCache ()
+  {
+    synchronized (this.librarianLock)
+    {
+      Arrays.fill (this.programCache, null);
+      // Identical data dumps for programs are only skipped as long as they are in the cache.
+      synchronized (this.lastEncodedDumps)
+      {
+        Arrays.fill (this.lastEncodedDumps, 0, MidiDevice_QVGT.NUMBER_OF_PROGRAMS, null);
+      }
+    }
+  }
+  
+  /** Processes a program received from the device.
+   * 
+   * @param program The program number, 0 through 99, inclusive.
+   * @param patch   The patch, {@code null} if identical to the one in the program cache.
+   * 
+   */
+  private void onProgramDumpFromDevice (final int program, final Patch_QGVT patch)
+  {
+    final ProgramFetchListener listener;
+    final Patch_QGVT fetchedPatch;
+    final int numberOfProgramsFetched;
+    final Patch_QGVT[] programs;
+    synchronized (this.librarianLock)
+    {
+      if (patch != null)
+        this.programCache[program] = patch;
+      fetchedPatch = this.programCache[program];
+      if (this.programFetchListener == null || fetchedPatch == null || ! this.missingPrograms.get (program))
+        return;
+      listener = this.programFetchListener;
+      this.missingPrograms.clear (program);
+      this.programFetchLastProgressNanos = System.nanoTime ();
+      numberOfProgramsFetched = MidiDevice_QVGT.NUMBER_OF_PROGRAMS - this.missingPrograms.cardinality ();
+      if (this.missingPrograms.isEmpty ())
+      {
+        programs = this.programCache.clone ();
+        this.programFetchListener = null;
+        if (this.programFetchTimeout != null)
+          this.programFetchTimeout.cancel (false);
+        this.programFetchTimeout = null;
+      }
+      else
+        programs = null;
+    }
+    listener.programFetched (program, fetchedPatch, numberOfProgramsFetched);
+    if (programs != null)
+      listener.fetchCompleted (programs);
+  }
+  
+  private void onProgramFetchTimeout ()
+  {
+    final ProgramFetchListener listener;
+    final Set<Integer> missing = new TreeSet<> ();
+    synchronized (this.librarianLock)
+    {
+      if (this.programFetchListener == null)
+        return;
+      final long remainingNanos =
+        this.programFetchLastProgressNanos + MidiDevice_QVGT.PROGRAM_FETCH_STALL_TIMEOUT_MS * 1000000L - System.nanoTime ();
+      if (remainingNanos > 0)
+      {
+        this.programFetchTimeout = this.qvgtScheduledTasks.schedule (this::onProgramFetchTimeout,
+          remainingNanos, TimeUnit.NANOSECONDS);
+        return;
+      }
+      if (this.programFetchAttempts < MidiDevice_QVGT.MAX_PROGRAM_FETCH_ATTEMPTS)
+      {
+        this.programFetchAttempts++;
+        LOG.log (Level.INFO, "Program fetch stalled; re-requesting {0} missing programs (attempt {1}).",
+          new Object[]{this.missingPrograms.cardinality (), this.programFetchAttempts});
+        int i = 0;
+        for (int program = this.missingPrograms.nextSetBit (0); program >= 0; program = this.missingPrograms.nextSetBit (program + 1))
+        {
+          final int missingProgram = program;
+          this.qvgtScheduledTasks.schedule (() -> requestMissingProgram (missingProgram),
+            i++ * MidiDevice_QVGT.PROGRAM_REQUEST_SPACING_MS, TimeUnit.MILLISECONDS);
+        }
+        // Start the stall timer after the last request.
+        this.programFetchLastProgressNanos = System.nanoTime () + i * MidiDevice_QVGT.PROGRAM_REQUEST_SPACING_MS * 1000000L;
+        this.programFetchTimeout = this.qvgtScheduledTasks.schedule (this::onProgramFetchTimeout,
+          i * MidiDevice_QVGT.PROGRAM_REQUEST_SPACING_MS + MidiDevice_QVGT.PROGRAM_FETCH_STALL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        return;
+      }
+      listener = this.programFetchListener;
+      for (int program = this.missingPrograms.nextSetBit (0); program >= 0; program = this.missingPrograms.nextSetBit (program + 1))
+        missing.add (program);
+      this.programFetchListener = null;
+      this.programFetchTimeout = null;
+    }
+    LOG.log (Level.WARNING, "Program fetch failed; missing programs: {0}.", missing);
+    listener.fetchFailed (missing);
+  }
+  
+  private void requestMissingProgram (final int program)
+  {
+    synchronized (this.librarianLock)
+    {
+      if (this.programFetchListener == null || ! this.missingPrograms.get (program))
+        return;
+    }
+    sendMidiSysExMessage_QGVT_DumpRequest (program);
+  }
+  
+  /** Aborts a program fetch in progress (if any), reporting failure to its listener.
+   * 
+   */
+  private void abortProgramFetch ()
+  {
+    final ProgramFetchListener listener;
+    final Set<Integer> missing = new TreeSet<> ();
+    synchronized (this.librarianLock)
+    {
+      if (this.programFetchListener == null)
+        return;
+      listener = this.programFetchListener;
+      for (int program = this.missingPrograms.nextSetBit (0); program >= 0; program = this.missingPrograms.nextSetBit (program + 1))
+        missing.add (program);
+      this.programFetchListener = null;
+      this.programFetchTimeout = null;
+    }
+    listener.fetchFailed (missing);
+  }
+  
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // LIBRARIAN
+  // BULK UPLOAD
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  /** The minimum pause (in milliseconds) between the starts of successive data dumps in a bulk upload.
+   * 
+   * <p>
+   * A single data dump takes about 50 milliseconds on the MIDI wire.
+   * 
+   * @see #uploadPrograms
+   * 
+   */
+  public final static long PROGRAM_UPLOAD_MINIMUM_SPACING_MS = 60L;
+  
+  /** The maximum pause (in milliseconds) between the starts of successive data dumps in a bulk upload.
+   * 
+   * @see #uploadPrograms
+   * 
+   */
+  public final static long PROGRAM_UPLOAD_MAXIMUM_SPACING_MS = 1000L;
+  
+  /** The time (in milliseconds), on top of the device turnaround, to wait for the read-back of an uploaded program.
+   * 
+   * @see #uploadPrograms
+   * @see #getDeviceTurnaroundMs
+   * 
+   */
+  public final static long PROGRAM_UPLOAD_VERIFY_TIMEOUT_MS = 1500L;
+  
+  /** The maximum number of attempts to upload a single program in a verified bulk upload.
+   * 
+   * @see #uploadPrograms
+   * 
+   */
+  public final static int MAX_PROGRAM_UPLOAD_ATTEMPTS = 3;
+  
+  /** A listener to the progress of a bulk upload.
+   * 
+   * <p>
+   * Callbacks are invoked from the thread receiving MIDI messages or from the shared scheduler,
+   * and should return quickly.
+   * 
+   * @see #uploadPrograms
+   * 
+   */
+  public static interface ProgramUploadListener
+  {
+    
+    /** Notification of the upload of a program.
+     * 
+     * @param program                  The program number (0 through 99, inclusive).
+     * @param attempts                 The number of attempts it took (always 1 for unverified uploads).
+     * @param numberOfProgramsUploaded The number of programs uploaded so far (including this one).
+     * 
+     */
+    void programUploaded (int program, int attempts, int numberOfProgramsUploaded);
+    
+    /** Notification of the completion of a bulk upload, successful or not.
+     * 
+     * @param failedPrograms    The program numbers that failed verification after exhausting all attempts,
+     *                            or that were not uploaded because the device was stopped, in ascending order.
+     * @param retries           The total number of retries.
+     * @param programsPerSecond The throughput of the upload, in programs per second.
+     * 
+     */
+    void uploadCompleted (Set<Integer> failedPrograms, int retries, double programsPerSecond);
+    
+  }
+  
+  private long deviceTurnaroundNanos = MidiDevice_QVGT.PROGRAM_UPLOAD_MINIMUM_SPACING_MS * 1000000L;
+  
+  private ProgramUploadListener programUploadListener = null;
+  
+  private boolean programUploadVerify = false;
+  
+  private final Patch_QGVT[] programUploadPatches = new Patch_QGVT[MidiDevice_QVGT.NUMBER_OF_PROGRAMS];
+  
+  private final byte[][] programUploadMessages = new byte[MidiDevice_QVGT.NUMBER_OF_PROGRAMS][];
+  
+  private final BitSet pendingUploads = new BitSet (MidiDevice_QVGT.NUMBER_OF_PROGRAMS);
+  
+  private final BitSet failedUploads = new BitSet (MidiDevice_QVGT.NUMBER_OF_PROGRAMS);
+  
+  private final int[] programUploadAttempts = new int[MidiDevice_QVGT.NUMBER_OF_PROGRAMS];
+  
+  private int programUploadCurrent = -1;
+  
+  private long programUploadSentNanos = 0L;
+  
+  private long programUploadStartNanos = 0L;
+  
+  private int programUploadRetries = 0;
+  
+  private int numberOfProgramsUploaded = 0;
+  
+  private ScheduledFuture<?> programUploadNext = null;
+  
+  /** Returns the (smoothed) measured turnaround time of the device.
+   * 
+   * <p>
+   * The turnaround time is the time between sending a request (dump request or data dump followed by a dump request)
+   * and the reception of the reply,
+   * measured on the read-backs of verified bulk uploads.
+   * Edit-Buffer polls are not taken into account,
+   * since the device answers a mere dump request much faster than a data dump followed by a dump request.
+   * 
+   * @return The (smoothed) measured turnaround time of the device, in milliseconds.
+   * 
+   * @see #uploadPrograms
+   * 
+   */
+  public final long getDeviceTurnaroundMs ()
+  {
+    synchronized (this.librarianLock)
+    {
+      return this.deviceTurnaroundNanos / 1000000L;
+    }
+  }
+  
+  private void onDeviceTurnaround (final long turnaroundNanos)
+  {
+    synchronized (this.librarianLock)
+    {
+      if (turnaroundNanos <= 0L || turnaroundNanos > MidiDevice_QVGT.PROGRAM_UPLOAD_VERIFY_TIMEOUT_MS * 1000000L)
+        return;
+      // Exponentially-weighted moving average with weight 1/8 for the new sample.
+      this.deviceTurnaroundNanos += (turnaroundNanos - this.deviceTurnaroundNanos) / 8;
+    }
+  }
+  
+  /** Uploads (writes) programs to the device.
+   * 
+   * <p>
+   * All data dump messages are encoded before the upload starts.
+   * They are then sent one at a time, paced according to the measured turnaround of the device
+   * (see {@link #getDeviceTurnaroundMs}),
+   * between {@link #PROGRAM_UPLOAD_MINIMUM_SPACING_MS} and {@link #PROGRAM_UPLOAD_MAXIMUM_SPACING_MS},
+   * so as not to overrun the input buffer of the device.
+   * 
+   * <p>
+   * In a verified upload, each data dump is followed by a dump request for the same program,
+   * and the next program is only sent after the read-back has been received.
+   * Programs whose read-back does not match, or does not arrive in time
+   * (see {@link #PROGRAM_UPLOAD_VERIFY_TIMEOUT_MS}), are sent again,
+   * up to a total of {@link #MAX_PROGRAM_UPLOAD_ATTEMPTS} attempts.
+   * Read-backs also update the program cache.
+   * 
+   * <p>
+   * Polling of the Edit Buffer is suspended during the upload,
+   * and so is the watchdog (which would otherwise fail on the absence of Edit-Buffer dumps).
+   * 
+   * @param programs The programs, keyed by program number (0 through 99, inclusive), non-{@code null} and non-empty.
+   * @param verify   Whether to verify each program through a read-back from the device.
+   * @param listener The listener to the progress of the upload, non-{@code null}.
+   * 
+   * @throws IllegalArgumentException If the map is {@code null} or empty, contains an illegal program number
+   *                                    or a {@code null} patch, or if the listener is {@code null}.
+   * @throws RuntimeException         If this device is not running, or if a fetch or upload is already in progress.
+   * 
+   * @see #writePatchToDevice
+   * @see #fetchAllPrograms
+   * 
+   */
+  public final void uploadPrograms
+  ( final Map<Integer, Patch_QGVT> programs,
+    final boolean verify,
+    final ProgramUploadListener listener)
+  {
+    if (programs == null || programs.isEmpty () || listener == null)
+      throw new IllegalArgumentException ();
+    final byte[][] messages = new byte[MidiDevice_QVGT.NUMBER_OF_PROGRAMS][];
+    for (final Map.Entry<Integer, Patch_QGVT> entry : programs.entrySet ())
+    {
+      final Integer program = entry.getKey ();
+      if (program == null || program < 0 || program >= MidiDevice_QVGT.NUMBER_OF_PROGRAMS || entry.getValue () == null)
+        throw new IllegalArgumentException ();
+      messages[program] =
+        MidiUtils_QVGT.createMidiSysExMessage_QVGT_DataDump (entry.getValue ().getEncodedBytesNoCopy (), program);
+    }
+    if (getStatus () == Status.STOPPED || getMidiService () == null || ! this.qvgtScheduledTasks.isRunning ())
+      throw new RuntimeException ();
+    synchronized (this.librarianLock)
+    {
+      if (this.programFetchListener != null || this.programUploadListener != null)
+        throw new RuntimeException ();
+      this.programUploadListener = listener;
+      this.programUploadVerify = verify;
+      Arrays.fill (this.programUploadPatches, null);
+      Arrays.fill (this.programUploadMessages, null);
+      Arrays.fill (this.programUploadAttempts, 0);
+      this.pendingUploads.clear ();
+      this.failedUploads.clear ();
+      for (final Map.Entry<Integer, Patch_QGVT> entry : programs.entrySet ())
+      {
+        this.programUploadPatches[entry.getKey ()] = entry.getValue ();
+        this.programUploadMessages[entry.getKey ()] = messages[entry.getKey ()];
+        this.pendingUploads.set (entry.getKey ());
+      }
+      this.programUploadCurrent = -1;
+      this.programUploadRetries = 0;
+      this.numberOfProgramsUploaded = 0;
+      this.programUploadStartNanos = System.nanoTime ();
+      suspendWatchdog ();
+      // Retain the order of writes.
+      flushEditingQueue ();
+      this.programUploadNext = this.qvgtScheduledTasks.schedule (this::uploadNextProgram, 0L, TimeUnit.NANOSECONDS);
+    }
+  }
+  
+  /** Returns whether a bulk upload is in progress.
+   * 
+   * @return Whether a bulk upload is in progress.
+   * 
+   * @see #uploadPrograms
+   * 
+   */
+  public final boolean isUploadingPrograms ()
+  {
+    synchronized (this.librarianLock)
+    {
+      return this.programUploadListener != null;
+    }
+  }
+  
+  private long getProgramUploadSpacingNanos ()
+  {
+    return Math.min (MidiDevice_QVGT.PROGRAM_UPLOAD_MAXIMUM_SPACING_MS * 1000000L,
+      Math.max (MidiDevice_QVGT.PROGRAM_UPLOAD_MINIMUM_SPACING_MS * 1000000L, this.deviceTurnaroundNanos));
+  }
+  
+  private void uploadNextProgram ()
+  {
+    ProgramUploadListener uploadedListener = null;
+    int uploadedProgram = -1;
+    int uploadedAttempts = 0;
+    int uploaded = 0;
+    synchronized (this.librarianLock)
+    {
+      this.programUploadNext = null;
+      if (this.programUploadListener == null)
+        return;
+      final int program = this.pendingUploads.nextSetBit (0);
+      if (program < 0)
+      {
+        completeProgramUpload ();
+        return;
+      }
+      this.programUploadAttempts[program]++;
+      this.programUploadSentNanos = System.nanoTime ();
+      getMidiService ().sendRawMidiMessage (this.programUploadMessages[program]);
+      if (this.programUploadVerify)
+      {
+        this.programUploadCurrent = program;
+        sendMidiSysExMessage_QGVT_DumpRequest (program);
+        this.programUploadNext = this.qvgtScheduledTasks.schedule (this::onProgramUploadTimeout,
+          this.deviceTurnaroundNanos + MidiDevice_QVGT.PROGRAM_UPLOAD_VERIFY_TIMEOUT_MS * 1000000L, TimeUnit.NANOSECONDS);
+      }
+      else
+      {
+        // Without read-back, keep the program cache in line with the device ourselves, as in writePatchToDevice.
+        this.programCache[program] = this.programUploadPatches[program].intern ();
+        forgetIdenticalDump (program);
+        this.pendingUploads.clear (program);
+        this.numberOfProgramsUploaded++;
+        uploadedListener = this.programUploadListener;
+        uploadedProgram = program;
+        uploadedAttempts = this.programUploadAttempts[program];
+        uploaded = this.numberOfProgramsUploaded;
+        this.programUploadNext = this.qvgtScheduledTasks.schedule (this::uploadNextProgram,
+          getProgramUploadSpacingNanos (), TimeUnit.NANOSECONDS);
+      }
+    }
+    if (uploadedListener != null)
+      uploadedListener.programUploaded (uploadedProgram, uploadedAttempts, uploaded);
+  }
+  
+  /** Processes a program received from the device during a verified bulk upload.
+   * 
+   * @param program        The program number, 0 through 99, inclusive.
+   * @param rawMidiMessage The data dump message.
+   * 
+   */
+  private void onProgramReadback (final int program, final byte[] rawMidiMessage)
+  {
+    final ProgramUploadListener listener;
+    final int attempts;
+    final int uploaded;
+    synchronized (this.librarianLock)
+    {
+      if (this.programUploadListener == null || program != this.programUploadCurrent)
+        return;
+      onDeviceTurnaround (System.nanoTime () - this.programUploadSentNanos);
+      this.programUploadCurrent = -1;
+      if (this.programUploadNext != null)
+        this.programUploadNext.cancel (false);
+      Patch_QGVT readback = null;
+      try
+      {
+        readback = Patch_QGVT.fromEncodedBytes (rawMidiMessage, 7);
+      }
+      catch (IllegalArgumentException iae)
+      {
+        // Treat as a mismatch.
+      }
+      if (readback == null
+        || ! Arrays.equals (readback.getDecodedBytesNoCopy (), this.programUploadPatches[program].getDecodedBytesNoCopy ()))
+      {
+        LOG.log (Level.WARNING, "Read-back mismatch for uploaded program {0}.", program);
+        retryOrFailProgramUpload (program);
+        return;
+      }
+      this.pendingUploads.clear (program);
+      this.numberOfProgramsUploaded++;
+      listener = this.programUploadListener;
+      attempts = this.programUploadAttempts[program];
+      uploaded = this.numberOfProgramsUploaded;
+      // The device has processed both the data dump and the dump request; no need to wait any longer.
+      this.programUploadNext = this.qvgtScheduledTasks.schedule (this::uploadNextProgram, 0L, TimeUnit.NANOSECONDS);
+    }
+    listener.programUploaded (program, attempts, uploaded);
+  }
+  
+  private void onProgramUploadTimeout ()
+  {
+    synchronized (this.librarianLock)
+    {
+      this.programUploadNext = null;
+      if (this.programUploadListener == null || this.programUploadCurrent < 0)
+        return;
+      final int program = this.programUploadCurrent;
+      this.programUploadCurrent = -1;
+      LOG.log (Level.WARNING, "No read-back for uploaded program {0}.", program);
+      retryOrFailProgramUpload (program);
+    }
   }
-
-  private void sendMidiSysExMessage_QGVT_DumpRequest_EditBuffer ()
+  
+  private void retryOrFailProgramUpload (final int program)
   {
-    final byte[] rawMidiMessage = MidiUtils_QVGT.createMidiSysExMessage_QVGT_DumpRequest_EditBuffer ();
-    // XXX The following should work as well!! XXX
-    //sendMidiSysEx ((byte) 0x03 /* XXX MUST BE DONE DIFFERENTLY IN SUPER CLASS!! XXX */, rawMidiMessage);
-    getMidiService ().sendRawMidiMessage (rawMidiMessage);
+    if (this.programUploadAttempts[program] < MidiDevice_QVGT.MAX_PROGRAM_UPLOAD_ATTEMPTS)
+      this.programUploadRetries++;
+    else
+    {
+      this.pendingUploads.clear (program);
+      this.failedUploads.set (program);
+    }
+    this.programUploadNext = this.qvgtScheduledTasks.schedule (this::uploadNextProgram,
+      getProgramUploadSpacingNanos (), TimeUnit.NANOSECONDS);
   }
   
-  private void sendMidiSysExMessage_QGVT_DumpRequest_AllPrograms ()
+  private void completeProgramUpload ()
   {
-    final byte[] rawMidiMessage = MidiUtils_QVGT.createMidiSysExMessage_QVGT_DumpRequest_AllPrograms ();
-    getMidiService ().sendRawMidiMessage (rawMidiMessage);
+    final ProgramUploadListener listener;
+    final Set<Integer> failed = new TreeSet<> ();
+    final int uploaded;
+    final int retries;
+    final double programsPerSecond;
+    synchronized (this.librarianLock)
+    {
+      if (this.programUploadListener == null)
+        return;
+      listener = this.programUploadListener;
+      this.failedUploads.or (this.pendingUploads);
+      for (int program = this.failedUploads.nextSetBit (0); program >= 0; program = this.failedUploads.nextSetBit (program + 1))
+        failed.add (program);
+      uploaded = this.numberOfProgramsUploaded;
+      retries = this.programUploadRetries;
+      final double elapsedSeconds = (System.nanoTime () - this.programUploadStartNanos) / 1.0e9;
+      programsPerSecond = (elapsedSeconds > 0 ? uploaded / elapsedSeconds : 0);
+      this.programUploadListener = null;
+      if (this.programUploadNext != null)
+        this.programUploadNext.cancel (false);
+      this.programUploadNext = null;
+      this.programUploadCurrent = -1;
+      this.pendingUploads.clear ();
+      Arrays.fill (this.programUploadPatches, null);
+      Arrays.fill (this.programUploadMessages, null);
+    }
+    resumeWatchdog ();
+    LOG.log (Level.INFO, "Program upload completed: {0} programs, {1} retries, {2} failed, {3} programs/s.",
+      new Object[]{uploaded, retries, failed.size (), programsPerSecond});
+    listener.uploadCompleted (failed, retries, programsPerSecond);
   }
   
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
   //
-  // MIDI SERVICE [AbstractMidiDevice]
-  // RX HANDLING
+  // LIBRARIAN
+  // PROGRAM CHANGE / PREFETCH
   //
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
-  @Override
-  protected void onMidiRxProgramChange (final int midiChannel, final int patch)
+  private volatile boolean prefetchNeighbourPrograms = false;
+  
+  /** Returns whether neighbouring programs are prefetched into the program cache upon a Program Change.
+   * 
+   * @return Whether neighbouring programs are prefetched into the program cache upon a Program Change.
+   * 
+   * @see #setPrefetchNeighbourPrograms
+   * 
+   */
+  public final boolean isPrefetchNeighbourPrograms ()
   {
-    super.onMidiRxProgramChange (midiChannel, patch);
-    for (final ParameterDescriptor_QVGT parameterDescriptor_QVGT : this.programChangeParameters)
-      onParameterReadFromDevice (parameterDescriptor_QVGT.getParameterName (), new byte[]{(byte) patch});
+    return this.prefetchNeighbourPrograms;
   }
-
-//  @Override
-//  protected void onMidiRxControlChange (final int midiChannel, final int controller, final int value)
-//  {
-//    super.onMidiRxControlChange (midiChannel, controller, value);
-//    if (controller < 0 || controller > 127)
-//      throw new RuntimeException ();
-//    if (value < 0 || value > 127)
-//      throw new RuntimeException ();
-//    final Set<ParameterDescriptor_RolandBoss> parameters = this.controlChangeParameters.get ((byte) controller);
-//    if (parameters != null)
-//      for (final ParameterDescriptor_RolandBoss parameter : parameters)
-//        onParameterReadFromDevice (parameter.getParameterName (), new byte[]{(byte) value});
-//  }
-
-  @Override
-  protected void onMidiRxSysEx (final byte vendorId, final byte[] rawMidiMessage)
+  
+  /** Sets whether neighbouring programs are prefetched into the program cache upon a Program Change.
+   * 
+   * <p>
+   * Upon each Program Change (incoming or local), the Edit Buffer is requested at once,
+   * and the Edit-Buffer parameters are updated from the program cache (if the new program is in it)
+   * without waiting for the reply.
+   * With prefetching enabled, the programs just below and above the new program
+   * are subsequently requested as well (if not already in the program cache),
+   * spaced by {@link #PROGRAM_REQUEST_SPACING_MS},
+   * so that stepping through programs is shown at once.
+   * 
+   * <p>
+   * By default, neighbouring programs are not prefetched.
+   * 
+   * @param prefetchNeighbourPrograms Whether to prefetch neighbouring programs.
+   * 
+   * @see #getCachedProgram
+   * 
+   */
+  public final void setPrefetchNeighbourPrograms (final boolean prefetchNeighbourPrograms)
   {
-    super.onMidiRxSysEx (vendorId, rawMidiMessage);
-    // LOG.log (Level.INFO, "onMidiRxSysEx, message={0}", HexUtils.bytesToHex (rawMidiMessage));
-    if (rawMidiMessage.length < 7                                   // Allow for OpCode; mandatory
-      || (rawMidiMessage[0] & 0xFF) != 0xF0                         // System Exclusive Status
-      || (rawMidiMessage[1] & 0xFF) != 0x00                         // 0x00000E: Alesis vendor ID
-      || (rawMidiMessage[2] & 0xFF) != 0x00                         // 0x00000E: Alesis vendor ID
-      || (rawMidiMessage[3] & 0xFF) != 0x0E                         // 0x00000E: Alesis vendor ID
-      || (rawMidiMessage[4] & 0xFF) != 0x07                         // Quadraverb GT device ID
-      || (rawMidiMessage[rawMidiMessage.length - 1] &0xFF) != 0xF7) // End-Of-Exclusive
+    this.prefetchNeighbourPrograms = prefetchNeighbourPrograms;
+  }
+  
+  /** Handles a Program Change (incoming or local).
+   * 
+   * @param program The new program number; ignored if out of range (0 through 99, inclusive).
+   * 
+   */
+  private void onProgramChange (final int program)
+  {
+    if (program < 0 || program >= MidiDevice_QVGT.NUMBER_OF_PROGRAMS)
+      return;
+    // Leave the RX thread (or the caller of put) as soon as possible.
+    this.qvgtScheduledTasks.schedule (() -> showProgramChange (program), 0L, TimeUnit.NANOSECONDS);
+  }
+  
+  private void showProgramChange (final int program)
+  {
+    final Patch_QGVT cachedPatch = getCachedProgram (program);
+    if (cachedPatch != null)
     {
-      LOG.log (Level.WARNING, "Dropped unknown SysEx message: {0}.", HexUtils.bytesToHex (rawMidiMessage));
+      // The next Edit-Buffer dump must be processed in full, even if identical to the previous one.
+      synchronized (this.lastEncodedDumps)
+      {
+        this.lastEncodedDumps[MidiDevice_QVGT.EDIT_BUFFER_PROGRAM_NUMBER] = null;
+      }
+      beginParameterBatch ();
+      try
+      {
+        onMidiDataDumpFromDevice (MidiDevice_QVGT.EDIT_BUFFER_PROGRAM_NUMBER, cachedPatch);
+      }
+      finally
+      {
+        endParameterBatch ();
+      }
+    }
+    if (isFetchingPrograms () || isUploadingPrograms ())
       return;
+    sendMidiSysExMessage_QGVT_DumpRequest_EditBuffer ();
+    synchronized (this.pollLock)
+    {
+      // Counts as a poll; defers the next one (if later).
+      this.lastPollNanos = System.nanoTime ();
+      if (this.nextPoll != null)
+        scheduleNextPoll ();
     }
-    if (rawMidiMessage.length == 155
-      && (rawMidiMessage[5] & 0xFF) == 0x02 // OpCode:
-      && (rawMidiMessage[6] >= 0 && rawMidiMessage[6] <= 100)) // Program Number
+    if (this.prefetchNeighbourPrograms)
     {
-      final int programNumber = rawMidiMessage[6];
-      final byte[] encodedProgramBytes = new byte[Patch_QGVT.ENCODED_PATCH_SIZE];
-      System.arraycopy (rawMidiMessage, 7, encodedProgramBytes, 0, Patch_QGVT.ENCODED_PATCH_SIZE);
-      this.lastUpdate = Instant.now (); // To please our watchdog...
-      onMidiDataDumpFromDevice (programNumber, encodedProgramBytes);
+      int i = 1;
+      for (final int neighbour : new int[]{program + 1, program - 1})
+        if (neighbour >= 0 && neighbour < MidiDevice_QVGT.NUMBER_OF_PROGRAMS && getCachedProgram (neighbour) == null)
+          this.qvgtScheduledTasks.schedule (() -> prefetchProgram (neighbour),
+            i++ * MidiDevice_QVGT.PROGRAM_REQUEST_SPACING_MS, TimeUnit.MILLISECONDS);
     }
-    else
-      LOG.log (Level.WARNING, "Dropped unknown SysEx message with length {0}: {1}.",
-        new Object[]{rawMidiMessage.length, HexUtils.bytesToHex (rawMidiMessage)});
   }
-
+  
+  private void prefetchProgram (final int program)
+  {
+    if (isFetchingPrograms () || isUploadingPrograms () || getCachedProgram (program) != null)
+      return;
+    // The reply ends up in the program cache.
+    sendMidiSysExMessage_QGVT_DumpRequest (program);
+  }
+  
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
   //
   // MIDI SERVICE [AbstractMidiDevice]
@@ -5573,6 +7927,27 @@ public class MidiDevice_QVGT
       LOG.log (Level.WARNING, "Dropping Midi Data Dump for (unregistered) program {0}.", program);
   }
 
+  /** Processes a (decoded) patch received from the device for given program.
+   * 
+   * <p>
+   * Equivalent to {@link #onMidiDataDumpFromDevice(int, byte[])},
+   * but without the need to convert the patch (again) from its raw bytes.
+   * 
+   * @param program The program number.
+   * @param patch   The patch, non-{@code null}.
+   * 
+   */
+  protected final void onMidiDataDumpFromDevice (final int program, final Patch_QGVT patch)
+  {
+    if (patch == null)
+      throw new IllegalArgumentException ();
+    if (this.dataDumpParameters.containsKey (program))
+      for (final ParameterDescriptor_QVGT pd : this.dataDumpParameters.get (program))
+        onParameterValueReadFromDevice (pd.getParameterName (), null, patch);
+    else
+      LOG.log (Level.WARNING, "Dropping Midi Data Dump for (unregistered) program {0}.", program);
+  }
+
   protected final void onParameterReadFromDevice (final String key, final byte[] value)
   {
     // LOG.log (Level.INFO, "key={0}, value={1}.", new Object[]{key, HexUtils.bytesToHex (value)});
@@ -5588,10 +7963,12 @@ public class MidiDevice_QVGT
       // (e.g., because the parameter is not applicable in the given configuration).
       // Invalidate (set to null value) ourselves and all our sub-parameters.
       //
-      invalidateParameterFromDevice (key);
+      updateParameterFromDeviceBatched (key, null);
+      if (this.subParameterPlans.containsKey (key))
+        this.subParameterPlans.get (key).reset ();
       if (this.subParameters.containsKey (key))
         for (final ParameterDescriptor_QVGT subPD : this.subParameters.get (key))
-          invalidateParameterFromDevice (subPD.getParameterName ());
+          updateParameterFromDeviceBatched (subPD.getParameterName (), null);
     }
     else if (value.length != parameterDescriptor_qvgt.getSize ())
     {
@@ -5621,64 +7998,123 @@ public class MidiDevice_QVGT
       //         LOG.log (Level.INFO, "Change in patch detected @0x{0}.", Integer.toHexString (i));
       //   }
       // }
-      updateParameterFromDevice (key, oValue);
-      if (this.subParameters.containsKey (key))
-      {
-        final byte[] decodedValue;
-        if (oValue instanceof Patch_QGVT)
-          decodedValue = ((Patch_QGVT) oValue).getDecodedBytes ();
-        else
-          decodedValue = value;
-        for (final ParameterDescriptor_QVGT subPD : this.subParameters.get (key))
-        {
-          final byte[] subValue;
-          final Function<Object, Boolean> parentValidator = subPD.getParentValidator ();
-          if (parentValidator != null && ! parentValidator.apply (oValue))
-            subValue = null;
-          else
-          {
-            final int[] offsets = subPD.getOffsets ();
-            final int size = subPD.getSize ();
-            switch (offsets.length)
-            {
-              case 0:
-                throw new RuntimeException ();
-              case 1:
-                final int offset = offsets[0];
-                if (offset < 0 || size <= 0 || offset + size > decodedValue.length)
-                  throw new RuntimeException ();
-                subValue = new byte[size];
-                System.arraycopy (decodedValue, offset, subValue, 0, size);
-                break;
-              default:
-                if (offsets.length != size)
-                  throw new RuntimeException ();
-                subValue = new byte[size];
-                for (int i = 0; i < size; i++)
-                  if (offsets[i] < 0 && offsets[i] >= decodedValue.length)
-                    throw new RuntimeException ();
-                  else
-                    subValue[i] = decodedValue[offsets[i]];
-                break;
-            }
-            if (subPD.getBitOffset () != null)
-            {
-              if (subValue.length != 1)
-                throw new RuntimeException ();
-              final int bitOffset = subPD.getBitOffset ();
-              final int bitSize = subPD.getBitSize ();
-              // First; zero everything left of us in the byte.
-              subValue[0] = (byte) ((subValue[0] << bitOffset) & 0xFF);
-              // Value now in first bitSize bits of subValue[0]; move it to the "last" bitSize bits in the byte.
-              subValue[0] = (byte) ((subValue[0] & 0xFF) >>> (8 - bitSize));
-            }
-          }
-          onParameterReadFromDevice (subPD.getParameterName (), subValue);
-        }
-      }
+      onParameterValueReadFromDevice (key, value, oValue);
     }
   }
 
+  /** Processes a (converted) parameter value from the device, including the extraction of its sub-parameters (if any).
+   * 
+   * @param key    The key, must be registered.
+   * @param value  The raw value, may be {@code null} if (and only if) the converted value is a {@link Patch_QGVT}.
+   * @param oValue The converted value, non-{@code null}.
+   * 
+   */
+  private void onParameterValueReadFromDevice (final String key, final byte[] value, final Object oValue)
+  {
+    if (oValue == null || (value == null && ! (oValue instanceof Patch_QGVT)))
+      throw new IllegalArgumentException ();
+    final SubParameterPlan subParameterPlan = this.subParameterPlans.get (key);
+    if (subParameterPlan == null)
+      updateParameterFromDeviceBatched (key, oValue);
+    else
+    {
+      final byte[] decodedValue;
+      if (oValue instanceof Patch_QGVT)
+        // No defensive copy; our sub-parameter plan does not modify the patch data.
+        decodedValue = ((Patch_QGVT) oValue).getDecodedBytesNoCopy ();
+      else
+        decodedValue = value;
+      // Nothing to do if the (decoded) value is identical to the one we processed last time.
+      if (subParameterPlan.isUnchanged (decodedValue))
+        return;
+      updateParameterFromDeviceBatched (key, oValue);
+      subParameterPlan.extract (decodedValue, oValue);
+    }
+  }
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // MIDI SERVICE [AbstractMidiDevice]
+  // RX HANDLING
+  //
+  // PARAMETER UPDATE BATCHES
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  /** The batches of parameter updates from the device, one per thread.
+   * 
+   * <p>
+   * Batches only coalesce updates;
+   * the updates are still applied (and reported) per key,
+   * followed by a single report of all updates in the batch to {@link MidiDeviceParameterBatchListener}s.
+   * 
+   * @see ParameterUpdateBatch
+   * 
+   */
+  private final ParameterUpdateBatch parameterBatch = new ParameterUpdateBatch (new ParameterUpdateBatch.Target ()
+  {
+    
+    @Override
+    public final void applyParameterUpdate (final String key, final Object value)
+    {
+      if (value == null)
+        invalidateParameterFromDevice (key);
+      else
+        updateParameterFromDevice (key, value);
+    }
+    
+    @Override
+    public final void parameterUpdatesApplied (final Map<String, Object> updates)
+    {
+      fireParametersChanged (updates);
+    }
+    
+  });
+  
+  protected void fireParametersChanged (final Map<String, Object> changes)
+  {
+    final Set<MidiDeviceListener> midiDeviceListenersCopy = getMidiDeviceListenersCopy ();
+    for (final MidiDeviceListener l : midiDeviceListenersCopy)
+      if (l instanceof MidiDeviceParameterBatchListener)
+        ((MidiDeviceParameterBatchListener) l).parametersChanged (changes);
+  }
+  
+  /** Opens (or nests) a batch of parameter updates from the device on the current thread.
+   * 
+   * <p>
+   * Each call must be matched by a call to {@link #endParameterBatch}, typically in a {@code finally} block.
+   * 
+   * @see ParameterUpdateBatch#begin
+   * 
+   */
+  protected final void beginParameterBatch ()
+  {
+    this.parameterBatch.begin ();
+  }
+  
+  /** Closes a batch of parameter updates from the device on the current thread.
+   * 
+   * @see ParameterUpdateBatch#end
+   * 
+   */
+  protected final void endParameterBatch ()
+  {
+    this.parameterBatch.end ();
+  }
+  
+  /** Updates (or, with a {@code null} value, invalidates) a parameter from the device, respecting an open batch (if any).
+   * 
+   * @param key   The key, must be registered.
+   * @param value The new value, {@code null} for invalidation.
+   * 
+   * @see ParameterUpdateBatch#update
+   * 
+   */
+  private void updateParameterFromDeviceBatched (final String key, final Object value)
+  {
+    this.parameterBatch.update (key, value);
+  }
+  
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
   //
   // Map.put IMPLEMENTATION
@@ -5700,6 +8136,7 @@ public class MidiDevice_QVGT
       final Object oldValue = super.get (key);
       if (getStatus () != Status.STOPPED && getMidiService () != null)
       {
+        startFastPolling ();
         switch (parameterDescriptor_QVGT.getParameterType_QVGT ())
         {
           case MidiControlChange:
@@ -5707,6 +8144,7 @@ public class MidiDevice_QVGT
             final byte[] convertedValue = parameterDescriptor_QVGT.convertToDevice (value);
             if (convertedValue == null)
               throw new IllegalArgumentException ();
+            flushEditingQueue ();
             sendMidiControlChange (getMidiChannel (), parameterDescriptor_QVGT.getController (), (int) convertedValue[0]);
             return oldValue;
           }
@@ -5715,7 +8153,11 @@ public class MidiDevice_QVGT
             final byte[] convertedValue = parameterDescriptor_QVGT.convertToDevice (value);
             if (convertedValue == null || convertedValue.length != 1)
               throw new IllegalArgumentException ();
+            flushEditingQueue ();
+            discardPendingEdits ();
+            markEditBufferImageStale ();
             sendMidiProgramChange (getMidiChannel (), (int) convertedValue[0]);
+            onProgramChange (convertedValue[0]);
             return oldValue;
           }
           case MidiSysEx_QVGT_Editing:
@@ -5746,7 +8188,9 @@ public class MidiDevice_QVGT
                 default:
                   throw new RuntimeException ();
               }
-              sendMidiSysExMessage_QVGT_Editing (function, page, editingValue);
+              // Mark the edit pending (if applicable) before it can be sent from the queue.
+              applyEditOptimistically (parameterDescriptor_QVGT, value, convertedValue, (function.ordinal () << 7) | page);
+              queueMidiSysExMessage_QVGT_Editing (function, page, editingValue);
             }
             return oldValue;
           }
@@ -5755,6 +8199,12 @@ public class MidiDevice_QVGT
             if (value == null || ! (value instanceof Patch_QGVT))
               throw new IllegalArgumentException ();
             final int programNumber = parameterDescriptor_QVGT.getProgram ();
+            flushEditingQueue ();
+            if (programNumber == MidiDevice_QVGT.EDIT_BUFFER_PROGRAM_NUMBER)
+            {
+              discardPendingEdits ();
+              markEditBufferImageStale ();
+            }
             sendMidiSysExMessage_QGVT_DataDump ((Patch_QGVT) value, programNumber);
             return oldValue;
           }
@@ -5766,6 +8216,148 @@ public class MidiDevice_QVGT
     }
   }
 
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // Map.putAll IMPLEMENTATION
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  private boolean editBufferImageStale = true;
+  
+  private long editBufferImageStaleNanos = System.nanoTime ();
+  
+  /** Marks the cached Edit-Buffer image stale, i.e., (possibly) out of date with the Edit Buffer on the device.
+   * 
+   * <p>
+   * Invoked upon each write to the Edit Buffer on the device, and upon each program change.
+   * 
+   */
+  private void markEditBufferImageStale ()
+  {
+    synchronized (this.editingQueue)
+    {
+      this.editBufferImageStale = true;
+      this.editBufferImageStaleNanos = System.nanoTime ();
+    }
+  }
+  
+  /** Marks the cached Edit-Buffer image current, unless it was marked stale after the given dump request time.
+   * 
+   * @param requestNanos The time (in nanoseconds) at which the Edit-Buffer dump just applied was requested.
+   * 
+   */
+  private void markEditBufferImageCurrent (final long requestNanos)
+  {
+    synchronized (this.editingQueue)
+    {
+      if (requestNanos - this.editBufferImageStaleNanos > 0L)
+        this.editBufferImageStale = false;
+    }
+  }
+  
+  /** Writes multiple parameters, combining writes to Edit-Buffer sub-parameters into a single Edit-Buffer data dump if cheaper.
+   * 
+   * <p>
+   * If all keys are Edit-Buffer sub-parameters written through MIDI-Edit messages,
+   * the number of wire bytes needed for the (distinct) MIDI-Edit messages is compared
+   * to the size of a single Edit-Buffer data dump holding the new values on top of the cached Edit-Buffer image.
+   * The data dump is only sent if it takes fewer wire bytes
+   * (i.e., for more than {@code 12} distinct MIDI-Edit messages),
+   * and if the cached Edit-Buffer image is known to be up to date with the device
+   * (i.e., it was requested after the last write to the Edit Buffer, and no MIDI-Edit messages are pending).
+   * In all other cases, the parameters are written one at a time, as with {@link #put}.
+   * 
+   * @param map The parameters and their new values, non-{@code null}.
+   * 
+   * @throws IllegalArgumentException If the map is {@code null},
+   *                                    or if it contains an unknown key or an illegal value.
+   * 
+   */
+  @Override
+  public void putAll (final Map<? extends String, ? extends Object> map)
+  {
+    if (map == null)
+      throw new IllegalArgumentException ();
+    if (! putAllAsEditBufferDump (map))
+      for (final Map.Entry<? extends String, ? extends Object> entry : map.entrySet ())
+        put (entry.getKey (), entry.getValue ());
+  }
+  
+  /** Attempts to write all parameters at once through a single Edit-Buffer data dump.
+   * 
+   * @param map The parameters and their new values, non-{@code null}.
+   * 
+   * @return Whether the parameters were written; if not, nothing has been sent to the device.
+   * 
+   */
+  private boolean putAllAsEditBufferDump (final Map<? extends String, ? extends Object> map)
+  {
+    if (map.size () * MidiUtils_QVGT.MIDI_EDITING_MESSAGE_SIZE <= MidiUtils_QVGT.MIDI_DATA_DUMP_MESSAGE_SIZE)
+      return false;
+    final SubParameterPlan subParameterPlan = this.subParameterPlans.get (MidiDevice_QVGT.EDIT_BUFFER_NAME);
+    if (subParameterPlan == null)
+      return false;
+    synchronized (this)
+    {
+      if (getStatus () == Status.STOPPED || getMidiService () == null)
+        return false;
+      final Object editBuffer = super.get (MidiDevice_QVGT.EDIT_BUFFER_NAME);
+      if (! (editBuffer instanceof Patch_QGVT))
+        return false;
+      synchronized (this.editingQueue)
+      {
+        if (this.editBufferImageStale || ! this.editingQueue.isEmpty ())
+          return false;
+      }
+      final byte[] decodedBytes = ((Patch_QGVT) editBuffer).getDecodedBytes ();
+      final Set<Integer> editingKeys = new HashSet<> ();
+      for (final Map.Entry<? extends String, ? extends Object> entry : map.entrySet ())
+      {
+        final String key = entry.getKey ();
+        if (key == null || entry.getValue () == null)
+          return false;
+        final ParameterDescriptor_QVGT parameterDescriptor_QVGT = getParameterDescriptor (key);
+        if (parameterDescriptor_QVGT == null
+          || parameterDescriptor_QVGT.getParameterType_QVGT ()
+               != ParameterDescriptor_QVGT.ParameterType_QVGT.MidiSysEx_QVGT_Editing
+          || parameterDescriptor_QVGT.getFunction () == null
+          || ! MidiDevice_QVGT.EDIT_BUFFER_NAME.equals (parameterDescriptor_QVGT.getParentKey ()))
+          return false;
+        final byte[] convertedValue;
+        try
+        {
+          convertedValue = parameterDescriptor_QVGT.convertToDevice (entry.getValue ());
+        }
+        catch (IllegalArgumentException | ClassCastException e)
+        {
+          // Leave it to put to report the illegal value.
+          return false;
+        }
+        if (convertedValue == null || ! subParameterPlan.insert (key, convertedValue, decodedBytes))
+          return false;
+        editingKeys.add ((parameterDescriptor_QVGT.getFunction ().ordinal () << 7) | parameterDescriptor_QVGT.getPage ());
+      }
+      if (editingKeys.size () * MidiUtils_QVGT.MIDI_EDITING_MESSAGE_SIZE <= MidiUtils_QVGT.MIDI_DATA_DUMP_MESSAGE_SIZE)
+        return false;
+      final Patch_QGVT patch;
+      try
+      {
+        patch = Patch_QGVT.fromBytes (decodedBytes);
+      }
+      catch (IllegalArgumentException iae)
+      {
+        return false;
+      }
+      LOG.log (Level.FINE, "Writing {0} parameters ({1} MIDI-Edit messages) through a single Edit-Buffer data dump.",
+        new Object[]{map.size (), editingKeys.size ()});
+      startFastPolling ();
+      discardPendingEdits ();
+      markEditBufferImageStale ();
+      sendMidiSysExMessage_QGVT_DataDump (patch, MidiDevice_QVGT.EDIT_BUFFER_PROGRAM_NUMBER);
+      return true;
+    }
+  }
+  
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
   //
   // WRITE PATCH TO DEVICE
@@ -5798,6 +8390,15 @@ public class MidiDevice_QVGT
       return;
     // LOG.log (Level.INFO, "Writing {0} to {1}.", new Object[]{patch, targetPatchNumber});
     sendMidiSysExMessage_QGVT_DataDump (patch, targetPatchNumber);
+    synchronized (this.librarianLock)
+    {
+      // Keep the program cache in line with the device, so switching to the program is shown at once.
+      this.programCache[targetPatchNumber] = patch.intern ();
+      synchronized (this.lastEncodedDumps)
+      {
+        this.lastEncodedDumps[targetPatchNumber] = null;
+      }
+    }
   }
   
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
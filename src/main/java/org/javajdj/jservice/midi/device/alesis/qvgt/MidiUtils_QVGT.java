@@ -16,6 +16,7 @@
  */
 package org.javajdj.jservice.midi.device.alesis.qvgt;
 
+import java.nio.ByteBuffer;
 import java.util.logging.Logger;
 import org.javajdj.jservice.midi.MidiUtils;
 
@@ -59,6 +60,11 @@ public class MidiUtils_QVGT
     (byte) 0xF7                            // End-Of-Exclusive
   };
 
+  /** The size (in bytes) of a MIDI-Edit message.
+   * 
+   */
+  public final static int MIDI_EDITING_MESSAGE_SIZE = MidiUtils_QVGT.MIDI_EDITING_TEMPLATE.length;
+  
   /** Formats a MIDI-Edit request from given function, page and value for the Alesis Quadraverb GT.
    * 
    * <p>
@@ -81,19 +87,8 @@ public class MidiUtils_QVGT
   public static byte[] createMidiSysExMessage_QVGT_Editing
   (final ParameterDescriptor_QVGT.Function_QVGT function, final int page, final int value)
   {
-    if (function == null || page < 0 || page > 127)
-      throw new IllegalArgumentException ();
-    if (value != (value & 0xffff))
-      throw new IllegalArgumentException ();
-    final byte[] rawMidiMessage = MidiUtils_QVGT.MIDI_EDITING_TEMPLATE.clone ();
-    rawMidiMessage[6] = (byte) function.getFunctionNumber ();
-    rawMidiMessage[7] = (byte) page;
-    // Note that the Alesis QVGT sends LSB first so we correct it here...
-    final byte[] mangledValue = new byte[2];
-    mangledValue[0] = (byte) (value & 0x00ff);
-    mangledValue[1] = (byte) ((value & 0xff00) >>> 8);
-    final byte[] encodedValue = MidiUtils_QVGT.encodeToMidi (mangledValue, 3);
-    System.arraycopy (encodedValue, 0, rawMidiMessage, 8, 3);
+    final byte[] rawMidiMessage = new byte[MidiUtils_QVGT.MIDI_EDITING_MESSAGE_SIZE];
+    MidiUtils_QVGT.writeMidiSysExMessage_QVGT_Editing (function, page, value, rawMidiMessage, 0);
     // LOG.log (Level.INFO, "Function={0}, page={1}, value={2}: {3}", new Object[]{
     //   function,
     //   Integer.toHexString (page).toUpperCase (),
@@ -103,6 +98,93 @@ public class MidiUtils_QVGT
     return rawMidiMessage;
   }
   
+  /** Formats a MIDI-Edit request into a caller-supplied array, without allocation.
+   * 
+   * <p>
+   * Apart from the destination, this method is identical to {@link #createMidiSysExMessage_QVGT_Editing}.
+   * 
+   * @param function  The function, non-{@code null}.
+   * @param page      The page, between 0 and 127 inclusive.
+   * @param value     The value, between 0 and 65535.
+   * @param dst       The destination array, non-{@code null}.
+   * @param dstOffset The offset in the destination array at which to write the message.
+   * 
+   * @return The number of bytes written, i.e., {@link #MIDI_EDITING_MESSAGE_SIZE}.
+   * 
+   * @throws IllegalArgumentException If the function is {@code null},
+   *                                    the page is negative or strictly larger than 127,
+   *                                    the value is beyond the two-byte unsigned-integer encoding range
+   *                                    (0 through 65535),
+   *                                    or if the destination array is {@code null} or too small.
+   * 
+   */
+  public static int writeMidiSysExMessage_QVGT_Editing
+  (final ParameterDescriptor_QVGT.Function_QVGT function, final int page, final int value,
+   final byte[] dst, final int dstOffset)
+  {
+    if (function == null || page < 0 || page > 127)
+      throw new IllegalArgumentException ();
+    if (value != (value & 0xffff))
+      throw new IllegalArgumentException ();
+    if (dst == null || dstOffset < 0 || dstOffset + MidiUtils_QVGT.MIDI_EDITING_MESSAGE_SIZE > dst.length)
+      throw new IllegalArgumentException ();
+    System.arraycopy (MidiUtils_QVGT.MIDI_EDITING_TEMPLATE, 0, dst, dstOffset, MidiUtils_QVGT.MIDI_EDITING_MESSAGE_SIZE);
+    dst[dstOffset + 6] = (byte) function.getFunctionNumber ();
+    dst[dstOffset + 7] = (byte) page;
+    // Note that the Alesis QVGT sends LSB first so we correct it here...
+    // The two value bytes are then encoded into three MIDI data bytes (see encodeToMidi).
+    final int lsb = value & 0xFF;
+    final int msb = (value & 0xFF00) >>> 8;
+    dst[dstOffset + 8]  = (byte) (lsb >>> 1);
+    dst[dstOffset + 9]  = (byte) (((lsb << 6) & 0x7F) | (msb >>> 2));
+    dst[dstOffset + 10] = (byte) ((msb << 5) & 0x7F);
+    return MidiUtils_QVGT.MIDI_EDITING_MESSAGE_SIZE;
+  }
+  
+  /** Formats a MIDI-Edit request into a caller-supplied buffer, without allocation.
+   * 
+   * <p>
+   * The message is written starting at the buffer's position, which is advanced accordingly.
+   * 
+   * @param function The function, non-{@code null}.
+   * @param page     The page, between 0 and 127 inclusive.
+   * @param value    The value, between 0 and 65535.
+   * @param dst      The destination buffer, non-{@code null}, not read-only,
+   *                   and with at least {@link #MIDI_EDITING_MESSAGE_SIZE} bytes remaining.
+   * 
+   * @throws IllegalArgumentException If any of the arguments is illegal.
+   * 
+   * @see #writeMidiSysExMessage_QVGT_Editing(ParameterDescriptor_QVGT.Function_QVGT, int, int, byte[], int)
+   * 
+   */
+  public static void writeMidiSysExMessage_QVGT_Editing
+  (final ParameterDescriptor_QVGT.Function_QVGT function, final int page, final int value,
+   final ByteBuffer dst)
+  {
+    if (dst == null || dst.isReadOnly () || dst.remaining () < MidiUtils_QVGT.MIDI_EDITING_MESSAGE_SIZE)
+      throw new IllegalArgumentException ();
+    if (dst.hasArray ())
+    {
+      MidiUtils_QVGT.writeMidiSysExMessage_QVGT_Editing (function, page, value,
+        dst.array (), dst.arrayOffset () + dst.position ());
+      dst.position (dst.position () + MidiUtils_QVGT.MIDI_EDITING_MESSAGE_SIZE);
+    }
+    else
+    {
+      if (function == null || page < 0 || page > 127 || value != (value & 0xffff))
+        throw new IllegalArgumentException ();
+      final int lsb = value & 0xFF;
+      final int msb = (value & 0xFF00) >>> 8;
+      dst.put (MidiUtils_QVGT.MIDI_EDITING_TEMPLATE, 0, 6)
+         .put ((byte) function.getFunctionNumber ())
+         .put ((byte) page)
+         .put ((byte) (lsb >>> 1))
+         .put ((byte) (((lsb << 6) & 0x7F) | (msb >>> 2)))
+         .put ((byte) ((msb << 5) & 0x7F))
+         .put ((byte) 0xF7); // End-Of-Exclusive
+    }
+  }
+  
   private final static byte[] MIDI_DATA_DUMP_PREFIX_TEMPLATE = new byte[]
   {
     (byte) 0xF0,                           // System Exclusive Status
@@ -112,7 +194,10 @@ public class MidiUtils_QVGT
     (byte) 0x00,                           // Program#, to be set appropriately!
   };
 
-  private final static int MIDI_DATA_DUMP_MESSAGE_SIZE =
+  /** The size (in bytes) of a MIDI Data Dump message.
+   * 
+   */
+  public final static int MIDI_DATA_DUMP_MESSAGE_SIZE =
     MidiUtils_QVGT.MIDI_DATA_DUMP_PREFIX_TEMPLATE.length // SysEx prefix
     + Patch_QGVT.ENCODED_PATCH_SIZE // Encoded patch data
     + 1; // End-Of-Exclusive
@@ -140,31 +225,90 @@ public class MidiUtils_QVGT
    * 
    */
   public static byte[] createMidiSysExMessage_QVGT_DataDump (final byte[] patchBytes, final int programNumber)
+  {
+    final byte[] rawMidiMessage = new byte[MidiUtils_QVGT.MIDI_DATA_DUMP_MESSAGE_SIZE];
+    MidiUtils_QVGT.writeMidiSysExMessage_QVGT_DataDump (patchBytes, programNumber, rawMidiMessage, 0);
+    return rawMidiMessage;
+  }
+  
+  /** Formats a MIDI Data Dump into a caller-supplied array.
+   * 
+   * <p>
+   * Apart from the destination, this method is identical to {@link #createMidiSysExMessage_QVGT_DataDump}.
+   * Decoded patch bytes are encoded straight into the destination array, without allocation.
+   * 
+   * @param patchBytes    The patch bytes, non-{@code null} and either encoded with length {@link Patch_QGVT#ENCODED_PATCH_SIZE}
+   *                        or decoded with length {@link Patch_QGVT#DECODED_PATCH_SIZE}.
+   * @param programNumber The program number, between 0 and 100, inclusive.
+   * @param dst           The destination array, non-{@code null}.
+   * @param dstOffset     The offset in the destination array at which to write the message.
+   * 
+   * @return The number of bytes written, i.e., {@link #MIDI_DATA_DUMP_MESSAGE_SIZE}.
+   * 
+   * @throws IllegalArgumentException If {@code patchBytes == null} or of incorrect length,
+   *                                    contains illegal bytes (in the encoded use case),
+   *                                    if program number is negative or strictly larger than 100,
+   *                                    or if the destination array is {@code null} or too small.
+   * 
+   */
+  public static int writeMidiSysExMessage_QVGT_DataDump
+  (final byte[] patchBytes, final int programNumber, final byte[] dst, final int dstOffset)
   {
     if (patchBytes == null || programNumber < 0 || programNumber > MidiDevice_QVGT.EDIT_BUFFER_PROGRAM_NUMBER)
       throw new IllegalArgumentException ();
-    final byte[] encodedPatchBytes;
+    if (dst == null || dstOffset < 0 || dstOffset + MidiUtils_QVGT.MIDI_DATA_DUMP_MESSAGE_SIZE > dst.length)
+      throw new IllegalArgumentException ();
+    final int prefixLength = MidiUtils_QVGT.MIDI_DATA_DUMP_PREFIX_TEMPLATE.length;
     switch (patchBytes.length)
     {
       case Patch_QGVT.DECODED_PATCH_SIZE:
-        encodedPatchBytes = MidiUtils_QVGT.encodeToMidi (patchBytes, Patch_QGVT.ENCODED_PATCH_SIZE);
+        MidiUtils_QVGT.encodeToMidi (patchBytes, 0, Patch_QGVT.DECODED_PATCH_SIZE,
+                                     dst, dstOffset + prefixLength, Patch_QGVT.ENCODED_PATCH_SIZE);
         break;
       case Patch_QGVT.ENCODED_PATCH_SIZE:
-        encodedPatchBytes = MidiUtils.ensureAllMidiDataBytes (patchBytes);
+        System.arraycopy (MidiUtils.ensureAllMidiDataBytes (patchBytes), 0,
+                          dst, dstOffset + prefixLength,
+                          Patch_QGVT.ENCODED_PATCH_SIZE);
         break;
       default:
         throw new IllegalArgumentException ();
     }
-    final byte[] rawMidiMessage = new byte[MidiUtils_QVGT.MIDI_DATA_DUMP_MESSAGE_SIZE];
-    System.arraycopy (MidiUtils_QVGT.MIDI_DATA_DUMP_PREFIX_TEMPLATE, 0,
-                      rawMidiMessage, 0,
-                      MidiUtils_QVGT.MIDI_DATA_DUMP_PREFIX_TEMPLATE.length);
-    rawMidiMessage[MidiUtils_QVGT.MIDI_DATA_DUMP_PREFIX_TEMPLATE.length - 1] = (byte) programNumber;
-    System.arraycopy (encodedPatchBytes, 0,
-                      rawMidiMessage, MidiUtils_QVGT.MIDI_DATA_DUMP_PREFIX_TEMPLATE.length,
-                      Patch_QGVT.ENCODED_PATCH_SIZE);
-    rawMidiMessage[rawMidiMessage.length - 1] = (byte) 0xF7; // End-Of-Exclusive
-    return rawMidiMessage;
+    System.arraycopy (MidiUtils_QVGT.MIDI_DATA_DUMP_PREFIX_TEMPLATE, 0, dst, dstOffset, prefixLength);
+    dst[dstOffset + prefixLength - 1] = (byte) programNumber;
+    dst[dstOffset + MidiUtils_QVGT.MIDI_DATA_DUMP_MESSAGE_SIZE - 1] = (byte) 0xF7; // End-Of-Exclusive
+    return MidiUtils_QVGT.MIDI_DATA_DUMP_MESSAGE_SIZE;
+  }
+  
+  /** Formats a MIDI Data Dump into a caller-supplied buffer.
+   * 
+   * <p>
+   * The message is written starting at the buffer's position, which is advanced accordingly.
+   * Array-backed buffers are written without allocation.
+   * 
+   * @param patchBytes    The patch bytes, non-{@code null} and either encoded with length {@link Patch_QGVT#ENCODED_PATCH_SIZE}
+   *                        or decoded with length {@link Patch_QGVT#DECODED_PATCH_SIZE}.
+   * @param programNumber The program number, between 0 and 100, inclusive.
+   * @param dst           The destination buffer, non-{@code null}, not read-only,
+   *                        and with at least {@link #MIDI_DATA_DUMP_MESSAGE_SIZE} bytes remaining.
+   * 
+   * @throws IllegalArgumentException If any of the arguments is illegal.
+   * 
+   * @see #writeMidiSysExMessage_QVGT_DataDump(byte[], int, byte[], int)
+   * 
+   */
+  public static void writeMidiSysExMessage_QVGT_DataDump
+  (final byte[] patchBytes, final int programNumber, final ByteBuffer dst)
+  {
+    if (dst == null || dst.isReadOnly () || dst.remaining () < MidiUtils_QVGT.MIDI_DATA_DUMP_MESSAGE_SIZE)
+      throw new IllegalArgumentException ();
+    if (dst.hasArray ())
+    {
+      MidiUtils_QVGT.writeMidiSysExMessage_QVGT_DataDump (patchBytes, programNumber,
+        dst.array (), dst.arrayOffset () + dst.position ());
+      dst.position (dst.position () + MidiUtils_QVGT.MIDI_DATA_DUMP_MESSAGE_SIZE);
+    }
+    else
+      dst.put (MidiUtils_QVGT.createMidiSysExMessage_QVGT_DataDump (patchBytes, programNumber));
   }
   
   private final static byte[] MIDI_DUMP_REQUEST_TEMPLATE = new byte[]
@@ -261,44 +405,139 @@ public class MidiUtils_QVGT
    * 
    * @throws IllegalArgumentException If {@code message == null} or the {@code dstLength} argument has illegal value.
    * 
+   * @see #encodeToMidi(byte[], int, int, byte[], int, int)
+   * 
    */
   public static byte[] encodeToMidi (final byte[] message, final int dstLength)
   {
-    if (message == null)
+    if (message == null || dstLength < 0)
       throw new IllegalArgumentException ();
-    final int nrOfBits = message.length * 8;
-    final int dstLengthCalculated = (int) Math.ceil (((double) nrOfBits) / 7);
-    if (((message.length * 8) % 7 == 0) && dstLength != dstLengthCalculated)
+    final byte[] encodedMessage = new byte[dstLength];
+    MidiUtils_QVGT.encodeToMidi (message, 0, message.length, encodedMessage, 0, dstLength);
+    return encodedMessage;    
+  }
+  
+  /** Encodes a range in a byte array into a range of (part of a) MIDI message, without intermediate copies.
+   * 
+   * <p>
+   * Apart from the source and destination ranges, this method is identical to {@link #encodeToMidi(byte[], int)}.
+   * The destination range is overwritten entirely.
+   * 
+   * <p>
+   * The source is processed in groups of 7 bytes (56 bits), each of which is encoded into 8 MIDI data bytes
+   * through a single {@code long}; a (partial) last group is zero-padded.
+   * 
+   * @param src       The source array holding the decoded message, non-{@code null}.
+   * @param srcOffset The offset of the decoded message in the source array.
+   * @param srcLength The length of the decoded message.
+   * @param dst       The destination array, non-{@code null}.
+   * @param dstOffset The offset in the destination array at which to write the encoded message.
+   * @param dstLength The length of the encoded message,
+   *                     allowing some bits in (only) the last byte of the input message
+   *                     to be discarded.
+   * 
+   * @throws IllegalArgumentException If either array is {@code null}, either range is out of bounds,
+   *                                    or the {@code dstLength} argument has illegal value.
+   * 
+   */
+  public static void encodeToMidi
+  (final byte[] src, final int srcOffset, final int srcLength, final byte[] dst, final int dstOffset, final int dstLength)
+  {
+    if (src == null || srcOffset < 0 || srcLength < 0 || srcOffset + srcLength > src.length)
       throw new IllegalArgumentException ();
-    if (((message.length * 8) % 7 != 0) && dstLength != dstLengthCalculated && dstLength != (dstLengthCalculated - 1))
+    if (dst == null || dstOffset < 0 || dstLength < 0 || dstOffset + dstLength > dst.length)
       throw new IllegalArgumentException ();
-    final byte[] encodedMessage = new byte[dstLength];
-    int dstPosition = 0;
-    int dstBitOffset = 1;
-    for (final byte messageByte : message)
+    final int nrOfBits = srcLength * 8;
+    final int dstLengthCalculated = (nrOfBits + 6) / 7;
+    if ((nrOfBits % 7 == 0) && dstLength != dstLengthCalculated)
+      throw new IllegalArgumentException ();
+    if ((nrOfBits % 7 != 0) && dstLength != dstLengthCalculated && dstLength != (dstLengthCalculated - 1))
+      throw new IllegalArgumentException ();
+    final int srcEnd = srcOffset + srcLength;
+    final int dstEnd = dstOffset + dstLength;
+    int s = srcOffset;
+    int d = dstOffset;
+    while (srcEnd - s >= 7 && dstEnd - d >= 8)
     {
-      encodedMessage[dstPosition] |= ((messageByte & 0xFF) >>> dstBitOffset);
-      // Sanity check...
-      // if (encodedMessage[dstPosition] < 0)
-      //   throw new RuntimeException ();
-      // XXX Does this actually make sense when encoding?? Why would you ever want to do that (dropping bits from decoded input)??
-      if (dstPosition + 1 >= encodedMessage.length)
-        break;
-      encodedMessage[dstPosition + 1] = (byte) (0x7F & (messageByte << (7 - dstBitOffset)));
-      // Sanity check...
-      // if (encodedMessage[dstPosition + 1] < 0)
-      //   throw new RuntimeException ();
-      dstPosition++;
-      dstBitOffset++;
-      if (dstBitOffset == 8)
-      {
-        dstPosition++;
-        if (dstPosition >= encodedMessage.length)
-          break;
-        dstBitOffset = 1;
-      }
+      final long word = ((src[s]     & 0xFFL) << 48)
+                      | ((src[s + 1] & 0xFFL) << 40)
+                      | ((src[s + 2] & 0xFFL) << 32)
+                      | ((src[s + 3] & 0xFFL) << 24)
+                      | ((src[s + 4] & 0xFFL) << 16)
+                      | ((src[s + 5] & 0xFFL) <<  8)
+                      |  (src[s + 6] & 0xFFL);
+      dst[d]     = (byte) ((word >>> 49) & 0x7F);
+      dst[d + 1] = (byte) ((word >>> 42) & 0x7F);
+      dst[d + 2] = (byte) ((word >>> 35) & 0x7F);
+      dst[d + 3] = (byte) ((word >>> 28) & 0x7F);
+      dst[d + 4] = (byte) ((word >>> 21) & 0x7F);
+      dst[d + 5] = (byte) ((word >>> 14) & 0x7F);
+      dst[d + 6] = (byte) ((word >>>  7) & 0x7F);
+      dst[d + 7] = (byte)  (word         & 0x7F);
+      s += 7;
+      d += 8;
+    }
+    // Tail; zero-padded source group, truncated destination group.
+    while (d < dstEnd)
+    {
+      long word = 0L;
+      for (int i = 0; i < 7; i++)
+        word = (word << 8) | (s + i < srcEnd ? (src[s + i] & 0xFFL) : 0L);
+      for (int i = 0; i < 8 && d < dstEnd; i++)
+        dst[d++] = (byte) ((word >>> MidiUtils_QVGT.GROUP_SHIFTS_7[i]) & 0x7F);
+      s += 7;
     }
-    return encodedMessage;    
+  }
+  
+  /** The right shifts of the successive 7-bit values in a 56-bit group.
+   * 
+   */
+  private final static int[] GROUP_SHIFTS_7 = { 49, 42, 35, 28, 21, 14, 7, 0 };
+  
+  /** The right shifts of the successive 8-bit values in a 56-bit group.
+   * 
+   */
+  private final static int[] GROUP_SHIFTS_8 = { 48, 40, 32, 24, 16, 8, 0 };
+  
+  /** Encodes from a {@link ByteBuffer} into (part of a) MIDI message in a {@link ByteBuffer}.
+   * 
+   * <p>
+   * Reads {@code srcLength} bytes starting at the source buffer's position,
+   * and writes {@code dstLength} bytes starting at the destination buffer's position;
+   * both positions are advanced accordingly.
+   * Array-backed buffers are processed without intermediate copies.
+   * 
+   * @param src       The source buffer, non-{@code null}.
+   * @param srcLength The length of the decoded message.
+   * @param dst       The destination buffer, non-{@code null} and not read-only.
+   * @param dstLength The length of the encoded message.
+   * 
+   * @throws IllegalArgumentException If either buffer is {@code null}, has insufficient remaining bytes,
+   *                                    or the {@code dstLength} argument has illegal value.
+   * 
+   * @see #encodeToMidi(byte[], int, int, byte[], int, int)
+   * 
+   */
+  public static void encodeToMidi (final ByteBuffer src, final int srcLength, final ByteBuffer dst, final int dstLength)
+  {
+    if (src == null || srcLength < 0 || src.remaining () < srcLength)
+      throw new IllegalArgumentException ();
+    if (dst == null || dst.isReadOnly () || dstLength < 0 || dst.remaining () < dstLength)
+      throw new IllegalArgumentException ();
+    if (src.hasArray () && dst.hasArray ())
+      MidiUtils_QVGT.encodeToMidi (
+        src.array (), src.arrayOffset () + src.position (), srcLength,
+        dst.array (), dst.arrayOffset () + dst.position (), dstLength);
+    else
+    {
+      final byte[] srcBytes = new byte[srcLength];
+      src.duplicate ().get (srcBytes);
+      final byte[] dstBytes = new byte[dstLength];
+      MidiUtils_QVGT.encodeToMidi (srcBytes, 0, srcLength, dstBytes, 0, dstLength);
+      dst.duplicate ().put (dstBytes);
+    }
+    src.position (src.position () + srcLength);
+    dst.position (dst.position () + dstLength);
   }
   
   /** Decodes a (part of a) MIDI message.
@@ -320,56 +559,137 @@ public class MidiUtils_QVGT
    * 
    * @throws IllegalArgumentException If {@code rawMessage == null} or the {@code dstLength} argument has illegal value.
    * 
+   * @see #decodeFromMidi(byte[], int, int, byte[], int, int)
+   * 
    */
   public static byte[] decodeFromMidi (final byte[] rawMessage, final int dstLength)
   {
-    if (rawMessage == null)
+    if (rawMessage == null || dstLength < 0)
+      throw new IllegalArgumentException ();
+    final byte[] decodedMessage = new byte[dstLength];
+    MidiUtils_QVGT.decodeFromMidi (rawMessage, 0, rawMessage.length, decodedMessage, 0, dstLength);
+    return decodedMessage;
+  }
+  
+  /** Decodes a range of (part of a) MIDI message into a range in a byte array, without intermediate copies.
+   * 
+   * <p>
+   * Apart from the source and destination ranges, this method is identical to {@link #decodeFromMidi(byte[], int)}.
+   * In particular, it may be applied directly to the payload of a received MIDI System Exclusive message.
+   * The destination range is overwritten entirely.
+   * 
+   * <p>
+   * The source is processed in groups of 8 MIDI data bytes (56 bits), each of which is decoded into 7 bytes
+   * through a single {@code long}; a (partial) last group is zero-padded.
+   * 
+   * @param src       The source array holding the raw (part of a) MIDI message, non-{@code null}.
+   * @param srcOffset The offset of the raw message in the source array.
+   * @param srcLength The length of the raw message.
+   * @param dst       The destination array, non-{@code null}.
+   * @param dstOffset The offset in the destination array at which to write the decoded message.
+   * @param dstLength The length of the decoded message,
+   *                     allowing some bits in (only) the last byte of the raw MIDI message
+   *                     to be discarded.
+   * 
+   * @throws IllegalArgumentException If either array is {@code null}, either range is out of bounds,
+   *                                    the raw message contains MIDI Status Bytes,
+   *                                    or the {@code dstLength} argument has illegal value.
+   * 
+   */
+  public static void decodeFromMidi
+  (final byte[] src, final int srcOffset, final int srcLength, final byte[] dst, final int dstOffset, final int dstLength)
+  {
+    if (src == null || srcOffset < 0 || srcLength < 0 || srcOffset + srcLength > src.length)
       throw new IllegalArgumentException ();
-    final int nrOfBits = rawMessage.length * 7;
-    final int dstLengthCalculated = (int) Math.ceil (((double) nrOfBits) / 8);
-    if (((rawMessage.length * 7) % 8 == 0) && dstLength != dstLengthCalculated)
+    if (dst == null || dstOffset < 0 || dstLength < 0 || dstOffset + dstLength > dst.length)
       throw new IllegalArgumentException ();
-    if (((rawMessage.length * 7) % 8 != 0) && dstLength != dstLengthCalculated && dstLength != (dstLengthCalculated - 1))
+    final int nrOfBits = srcLength * 7;
+    final int dstLengthCalculated = (nrOfBits + 7) / 8;
+    if ((nrOfBits % 8 == 0) && dstLength != dstLengthCalculated)
       throw new IllegalArgumentException ();
-    final byte[] decodedMessage = new byte[dstLength];
-    // LOG.log (Level.INFO, "rawMessage.length = {0}, decodedMessage.length = {1}.",
-    //  new Object[]{rawMessage.length, decodedMessage.length});
-    int dstPosition = 0;
-    int dstBitOffset = 0;
-    // LOG.log (Level.INFO, "Raw Message: {0}", HexUtils.bytesToHex (rawMessage));
-    // int rawIndex = 0;
-    for (final byte rawMessageByte : rawMessage)
+    if ((nrOfBits % 8 != 0) && dstLength != dstLengthCalculated && dstLength != (dstLengthCalculated - 1))
+      throw new IllegalArgumentException ();
+    final int srcEnd = srcOffset + srcLength;
+    final int dstEnd = dstOffset + dstLength;
+    int statusBits = 0;
+    for (int i = srcOffset; i < srcEnd; i++)
+      statusBits |= src[i];
+    if (statusBits < 0)
+      throw new IllegalArgumentException ();
+    int s = srcOffset;
+    int d = dstOffset;
+    while (srcEnd - s >= 8 && dstEnd - d >= 7)
     {
-      // LOG.log (Level.INFO, "rawIndex = {0}, dstPosition = {1}, dstBitOffset = {2}.",
-      //   new Object[]{rawIndex, dstPosition, dstBitOffset});
-      // rawIndex++;
-      if (rawMessageByte < 0)
-        throw new IllegalArgumentException ();
-      else if (dstBitOffset == 0)
-      {
-        // LOG.log (Level.INFO, "First");
-        decodedMessage[dstPosition] = (byte) (rawMessageByte << 1);
-        dstBitOffset = 7;
-      }
-      else if (dstBitOffset == 1)
-      {
-        // LOG.log (Level.INFO, "Second");
-        decodedMessage[dstPosition] |= rawMessageByte;
-        dstPosition++;
-        dstBitOffset = 0;
-      }
-      else
-      {
-        // LOG.log (Level.INFO, "Third");
-        decodedMessage[dstPosition] |= (rawMessageByte >>> (dstBitOffset - 1));
-        if (dstPosition + 1 >= decodedMessage.length)
-          break;
-        decodedMessage[dstPosition + 1] = (byte) (rawMessageByte << (9 - dstBitOffset));
-        dstPosition++;
-        dstBitOffset = (dstBitOffset + 7) % 8;
-      }
+      final long word = ((long) src[s]     << 49)
+                      | ((long) src[s + 1] << 42)
+                      | ((long) src[s + 2] << 35)
+                      | ((long) src[s + 3] << 28)
+                      | ((long) src[s + 4] << 21)
+                      | ((long) src[s + 5] << 14)
+                      | ((long) src[s + 6] <<  7)
+                      |  (long) src[s + 7];
+      dst[d]     = (byte) (word >>> 48);
+      dst[d + 1] = (byte) (word >>> 40);
+      dst[d + 2] = (byte) (word >>> 32);
+      dst[d + 3] = (byte) (word >>> 24);
+      dst[d + 4] = (byte) (word >>> 16);
+      dst[d + 5] = (byte) (word >>>  8);
+      dst[d + 6] = (byte)  word;
+      s += 8;
+      d += 7;
     }
-    return decodedMessage;
+    // Tail; zero-padded source group, truncated destination group.
+    while (d < dstEnd)
+    {
+      long word = 0L;
+      for (int i = 0; i < 8; i++)
+        word = (word << 7) | (s + i < srcEnd ? src[s + i] : 0L);
+      for (int i = 0; i < 7 && d < dstEnd; i++)
+        dst[d++] = (byte) (word >>> MidiUtils_QVGT.GROUP_SHIFTS_8[i]);
+      s += 8;
+    }
+  }
+  
+  /** Decodes (part of a) MIDI message in a {@link ByteBuffer} into a {@link ByteBuffer}.
+   * 
+   * <p>
+   * Reads {@code srcLength} bytes starting at the source buffer's position,
+   * and writes {@code dstLength} bytes starting at the destination buffer's position;
+   * both positions are advanced accordingly.
+   * Array-backed buffers are processed without intermediate copies.
+   * 
+   * @param src       The source buffer, non-{@code null}.
+   * @param srcLength The length of the raw message.
+   * @param dst       The destination buffer, non-{@code null} and not read-only.
+   * @param dstLength The length of the decoded message.
+   * 
+   * @throws IllegalArgumentException If either buffer is {@code null}, has insufficient remaining bytes,
+   *                                    the raw message contains MIDI Status Bytes,
+   *                                    or the {@code dstLength} argument has illegal value.
+   * 
+   * @see #decodeFromMidi(byte[], int, int, byte[], int, int)
+   * 
+   */
+  public static void decodeFromMidi (final ByteBuffer src, final int srcLength, final ByteBuffer dst, final int dstLength)
+  {
+    if (src == null || srcLength < 0 || src.remaining () < srcLength)
+      throw new IllegalArgumentException ();
+    if (dst == null || dst.isReadOnly () || dstLength < 0 || dst.remaining () < dstLength)
+      throw new IllegalArgumentException ();
+    if (src.hasArray () && dst.hasArray ())
+      MidiUtils_QVGT.decodeFromMidi (
+        src.array (), src.arrayOffset () + src.position (), srcLength,
+        dst.array (), dst.arrayOffset () + dst.position (), dstLength);
+    else
+    {
+      final byte[] srcBytes = new byte[srcLength];
+      src.duplicate ().get (srcBytes);
+      final byte[] dstBytes = new byte[dstLength];
+      MidiUtils_QVGT.decodeFromMidi (srcBytes, 0, srcLength, dstBytes, 0, dstLength);
+      dst.duplicate ().put (dstBytes);
+    }
+    src.position (src.position () + srcLength);
+    dst.position (dst.position () + dstLength);
   }
   
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -515,6 +515,11 @@ final class ParameterDescriptor_QVGT<E>
   
   private final ParameterConversion_QVGT parameterConversion_QVGT;
   
+  final ParameterConversion_QVGT getParameterConversion_QVGT ()
+  {
+    return this.parameterConversion_QVGT;
+  }
+  
   final Object convertFromDevice (final byte[] value)
   {
     switch (this.parameterConversion_QVGT)
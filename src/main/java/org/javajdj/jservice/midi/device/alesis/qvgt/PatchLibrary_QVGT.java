@@ -0,0 +1,418 @@
+/* 
+ * Copyright 2019 Jan de Jongh <jfcmdejongh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package org.javajdj.jservice.midi.device.alesis.qvgt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/** An in-memory library of (many) Alesis Quadraverb GT patches, with secondary indexes for fast queries.
+ * 
+ * <p>
+ * Each patch added to the library is assigned a unique (non-negative) identifier,
+ * which is never reused for another patch, even after removal of the patch.
+ * The same patch (or equal patches) may be added multiple times, under different identifiers.
+ * Patches are stored in their {@link Patch_QGVT#intern interned} form.
+ * 
+ * <p>
+ * Upon addition, the name, configuration and (applicable) modes of the patch are extracted once,
+ * and entered into secondary indexes.
+ * Queries on these properties are answered by intersecting the indexes,
+ * without scanning (or further decoding) the patches.
+ * 
+ * <p>
+ * The library is thread-safe.
+ * 
+ * @see Patch_QGVT#getName
+ * @see Patch_QGVT#getConfiguration
+ * @see Patch_QGVT#getReverbMode
+ * @see Patch_QGVT#getPitchMode_Configs14
+ * @see Patch_QGVT#getEqMode_Config1
+ * @see Patch_QGVT#getEqMode_Config4
+ * 
+ * @author Jan de Jongh {@literal <jfcmdejongh@gmail.com>}
+ * 
+ */
+public class PatchLibrary_QVGT
+{
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // CONSTRUCTORS / FACTORIES / CLONING
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  /** Creates an empty library.
+   * 
+   */
+  public PatchLibrary_QVGT ()
+  {
+    this.byConfiguration = PatchLibrary_QVGT.createIndex (Patch_QGVT.Configuration.values ().length);
+    this.byReverbMode = PatchLibrary_QVGT.createIndex (MidiDevice_QVGT.ReverbMode.values ().length);
+    this.byPitchMode = PatchLibrary_QVGT.createIndex (MidiDevice_QVGT.PitchMode.values ().length);
+    this.byEqModeConfig1 = PatchLibrary_QVGT.createIndex (MidiDevice_QVGT.EqModeConfig1.values ().length);
+    this.byEqModeConfig4 = PatchLibrary_QVGT.createIndex (MidiDevice_QVGT.EqModeConfig4.values ().length);
+  }
+
+  private static BitSet[] createIndex (final int size)
+  {
+    final BitSet[] index = new BitSet[size];
+    for (int i = 0; i < size; i++)
+      index[i] = new BitSet ();
+    return index;
+  }
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // PATCHES
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  private Patch_QGVT[] patches = new Patch_QGVT[64];
+
+  private String[] names = new String[64];
+
+  private int nextId = 0;
+
+  private final BitSet ids = new BitSet ();
+
+  /** Adds a patch to the library.
+   * 
+   * <p>
+   * The library is left unchanged if the patch cannot be indexed (e.g., if it holds an illegal mode).
+   * 
+   * @param patch The patch, non-{@code null}.
+   * 
+   * @return The (new) identifier of the patch in the library.
+   * 
+   * @throws IllegalArgumentException If the patch is {@code null} or cannot be indexed.
+   * 
+   */
+  public final synchronized int add (final Patch_QGVT patch)
+  {
+    if (patch == null)
+      throw new IllegalArgumentException ();
+    // Obtain everything to index before touching the library; -1 for modes not applicable to the configuration.
+    final String name;
+    final Patch_QGVT.Configuration configuration;
+    int reverbMode = -1;
+    int pitchMode = -1;
+    int eqModeConfig1 = -1;
+    int eqModeConfig4 = -1;
+    try
+    {
+      name = patch.getName ();
+      configuration = patch.getConfiguration ();
+      switch (configuration)
+      {
+        case C1_EQ_PCH_DL_REV:
+          reverbMode = patch.getReverbMode ().ordinal ();
+          pitchMode = patch.getPitchMode_Configs14 ().ordinal ();
+          eqModeConfig1 = patch.getEqMode_Config1 ().ordinal ();
+          break;
+        case C2_LES_DL_REV:
+        case C5_3EQ_REV:
+        case C6_RING_DL_REV:
+        case C7_RESO_DL_REV:
+          reverbMode = patch.getReverbMode ().ordinal ();
+          break;
+        case C4_5EQ_PCH_DL:
+          pitchMode = patch.getPitchMode_Configs14 ().ordinal ();
+          eqModeConfig4 = patch.getEqMode_Config4 ().ordinal ();
+          break;
+        default:
+          break;
+      }
+    }
+    catch (RuntimeException re)
+    {
+      throw new IllegalArgumentException (re);
+    }
+    final int id = this.nextId++;
+    if (id >= this.patches.length)
+    {
+      this.patches = Arrays.copyOf (this.patches, 2 * this.patches.length);
+      this.names = Arrays.copyOf (this.names, this.patches.length);
+    }
+    // Equal patches (typically many in large libraries) share a single instance.
+    this.patches[id] = patch.intern ();
+    this.names[id] = name;
+    this.ids.set (id);
+    if (name != null)
+      this.byName.computeIfAbsent (name, (final String n) -> new BitSet ()).set (id);
+    this.byConfiguration[configuration.ordinal ()].set (id);
+    if (reverbMode >= 0)
+      this.byReverbMode[reverbMode].set (id);
+    if (pitchMode >= 0)
+      this.byPitchMode[pitchMode].set (id);
+    if (eqModeConfig1 >= 0)
+      this.byEqModeConfig1[eqModeConfig1].set (id);
+    if (eqModeConfig4 >= 0)
+      this.byEqModeConfig4[eqModeConfig4].set (id);
+    return id;
+  }
+
+  /** Adds multiple patches to the library.
+   * 
+   * @param patches The patches, non-{@code null} and without {@code null} elements.
+   * 
+   * @return The (new) identifiers of the patches in the library, in iteration order of the collection.
+   * 
+   * @throws IllegalArgumentException If the collection is {@code null} or contains {@code null}.
+   * 
+   */
+  public final synchronized int[] addAll (final Collection<Patch_QGVT> patches)
+  {
+    if (patches == null || patches.contains (null))
+      throw new IllegalArgumentException ();
+    final int[] addedIds = new int[patches.size ()];
+    int i = 0;
+    for (final Patch_QGVT patch : patches)
+      addedIds[i++] = add (patch);
+    return addedIds;
+  }
+
+  /** Removes a patch from the library.
+   * 
+   * @param id The identifier of the patch.
+   * 
+   * @return The patch removed, {@code null} if there was no patch with given identifier.
+   * 
+   */
+  public final synchronized Patch_QGVT remove (final int id)
+  {
+    if (id < 0 || ! this.ids.get (id))
+      return null;
+    final Patch_QGVT patch = this.patches[id];
+    final String name = this.names[id];
+    this.patches[id] = null;
+    this.names[id] = null;
+    this.ids.clear (id);
+    if (name != null)
+    {
+      final BitSet nameIds = this.byName.get (name);
+      nameIds.clear (id);
+      if (nameIds.isEmpty ())
+        this.byName.remove (name);
+    }
+    for (final BitSet[] index : new BitSet[][]
+      {this.byConfiguration, this.byReverbMode, this.byPitchMode, this.byEqModeConfig1, this.byEqModeConfig4})
+      for (final BitSet indexIds : index)
+        indexIds.clear (id);
+    return patch;
+  }
+
+  /** Removes all patches from the library.
+   * 
+   * <p>
+   * Identifiers are not reused after clearing the library.
+   * 
+   */
+  public final synchronized void clear ()
+  {
+    Arrays.fill (this.patches, null);
+    Arrays.fill (this.names, null);
+    this.ids.clear ();
+    this.byName.clear ();
+    for (final BitSet[] index : new BitSet[][]
+      {this.byConfiguration, this.byReverbMode, this.byPitchMode, this.byEqModeConfig1, this.byEqModeConfig4})
+      for (final BitSet indexIds : index)
+        indexIds.clear ();
+  }
+
+  /** Returns a patch in the library.
+   * 
+   * @param id The identifier of the patch.
+   * 
+   * @return The patch, {@code null} if there is no patch with given identifier.
+   * 
+   */
+  public final synchronized Patch_QGVT get (final int id)
+  {
+    if (id < 0 || ! this.ids.get (id))
+      return null;
+    return this.patches[id];
+  }
+
+  /** Returns the number of patches in the library.
+   * 
+   * @return The number of patches in the library.
+   * 
+   */
+  public final synchronized int size ()
+  {
+    return this.ids.cardinality ();
+  }
+
+  /** Returns the identifiers of all patches in the library.
+   * 
+   * @return The identifiers of all patches in the library, in ascending order (i.e., in order of addition).
+   * 
+   */
+  public final synchronized int[] getIds ()
+  {
+    return this.ids.stream ().toArray ();
+  }
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // INDEXES
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  private final NavigableMap<String, BitSet> byName = new TreeMap<> ();
+
+  private final BitSet[] byConfiguration;
+
+  private final BitSet[] byReverbMode;
+
+  private final BitSet[] byPitchMode;
+
+  private final BitSet[] byEqModeConfig1;
+
+  private final BitSet[] byEqModeConfig4;
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // QUERIES
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  /** Finds the identifiers of the patches matching all given criteria.
+   * 
+   * <p>
+   * A {@code null} criterion matches any patch.
+   * A non-{@code null} mode criterion only matches patches in configurations in which the mode applies;
+   * for instance, a reverb mode never matches patches in {@link Patch_QGVT.Configuration#C3_GEQ_DL}.
+   * 
+   * @param name          The (exact, trimmed) name, or {@code null}.
+   * @param configuration The configuration, or {@code null}.
+   * @param reverbMode    The reverb mode, or {@code null}.
+   * @param pitchMode     The pitch mode, or {@code null}.
+   * @param eqModeConfig1 The eq mode in configuration 1, or {@code null}.
+   * @param eqModeConfig4 The eq mode in configuration 4, or {@code null}.
+   * 
+   * @return The identifiers of the matching patches, in ascending order.
+   * 
+   * @see #find
+   * 
+   */
+  public final synchronized int[] findIds
+  ( final String name,
+    final Patch_QGVT.Configuration configuration,
+    final MidiDevice_QVGT.ReverbMode reverbMode,
+    final MidiDevice_QVGT.PitchMode pitchMode,
+    final MidiDevice_QVGT.EqModeConfig1 eqModeConfig1,
+    final MidiDevice_QVGT.EqModeConfig4 eqModeConfig4)
+  {
+    final BitSet result;
+    if (name != null)
+    {
+      final BitSet nameIds = this.byName.get (name);
+      if (nameIds == null)
+        return new int[0];
+      result = (BitSet) nameIds.clone ();
+    }
+    else
+      result = (BitSet) this.ids.clone ();
+    if (configuration != null)
+      result.and (this.byConfiguration[configuration.ordinal ()]);
+    if (reverbMode != null)
+      result.and (this.byReverbMode[reverbMode.ordinal ()]);
+    if (pitchMode != null)
+      result.and (this.byPitchMode[pitchMode.ordinal ()]);
+    if (eqModeConfig1 != null)
+      result.and (this.byEqModeConfig1[eqModeConfig1.ordinal ()]);
+    if (eqModeConfig4 != null)
+      result.and (this.byEqModeConfig4[eqModeConfig4.ordinal ()]);
+    return result.stream ().toArray ();
+  }
+
+  /** Finds the patches matching all given criteria.
+   * 
+   * @param name          The (exact, trimmed) name, or {@code null}.
+   * @param configuration The configuration, or {@code null}.
+   * @param reverbMode    The reverb mode, or {@code null}.
+   * @param pitchMode     The pitch mode, or {@code null}.
+   * @param eqModeConfig1 The eq mode in configuration 1, or {@code null}.
+   * @param eqModeConfig4 The eq mode in configuration 4, or {@code null}.
+   * 
+   * @return The matching patches, in ascending order of identifier.
+   * 
+   * @see #findIds
+   * 
+   */
+  public final synchronized List<Patch_QGVT> find
+  ( final String name,
+    final Patch_QGVT.Configuration configuration,
+    final MidiDevice_QVGT.ReverbMode reverbMode,
+    final MidiDevice_QVGT.PitchMode pitchMode,
+    final MidiDevice_QVGT.EqModeConfig1 eqModeConfig1,
+    final MidiDevice_QVGT.EqModeConfig4 eqModeConfig4)
+  {
+    final int[] foundIds = findIds (name, configuration, reverbMode, pitchMode, eqModeConfig1, eqModeConfig4);
+    final List<Patch_QGVT> found = new ArrayList<> (foundIds.length);
+    for (final int id : foundIds)
+      found.add (this.patches[id]);
+    return found;
+  }
+
+  /** Finds the identifiers of the patches with a name starting with given prefix.
+   * 
+   * @param namePrefix The name prefix, non-{@code null}.
+   * 
+   * @return The identifiers of the matching patches, in ascending order.
+   * 
+   * @throws IllegalArgumentException If the prefix is {@code null}.
+   * 
+   */
+  public final synchronized int[] findIdsByNamePrefix (final String namePrefix)
+  {
+    if (namePrefix == null)
+      throw new IllegalArgumentException ();
+    final BitSet result = new BitSet ();
+    for (final Map.Entry<String, BitSet> entry : this.byName.tailMap (namePrefix, true).entrySet ())
+    {
+      if (! entry.getKey ().startsWith (namePrefix))
+        break;
+      result.or (entry.getValue ());
+    }
+    return result.stream ().toArray ();
+  }
+
+  /** Returns the distinct names of the patches in the library.
+   * 
+   * @return The distinct names of the patches in the library, in ascending (lexicographic) order.
+   * 
+   */
+  public final synchronized List<String> getNames ()
+  {
+    return new ArrayList<> (this.byName.keySet ());
+  }
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // END OF FILE
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+}
@@ -17,10 +17,13 @@
 package org.javajdj.jservice.midi.device.alesis.qvgt;
 
 import java.io.UnsupportedEncodingException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import org.javajdj.jservice.midi.MidiUtils;
 import org.javajdj.util.hex.HexUtils;
 
 /** A patch (aka program) on the Alesis Quadraverb GT.
@@ -31,6 +34,8 @@ import org.javajdj.util.hex.HexUtils;
  * 
  * <p>
  * A patch is an immutable object.
+ * Its name, configuration, modes and hash code are derived from the patch data only once.
+ * Equal patches can share a single instance through {@link #intern}.
  * Its intended use is for saving patches to the Quadraverb GT, to the file system, or to a patch library.
  * 
  * @author Jan de Jongh {@literal <jfcmdejongh@gmail.com>}
@@ -104,23 +109,51 @@ public final class Patch_QGVT
     switch (bytes.length)
     {
       case DECODED_PATCH_SIZE:
-        // XXX Should consider to NOT clone the input data?
         this.decodedBytes = bytes.clone ();
         this.encodedBytes = MidiUtils_QVGT.encodeToMidi (this.decodedBytes, Patch_QGVT.ENCODED_PATCH_SIZE);
         break;
       case ENCODED_PATCH_SIZE:
-        this.decodedBytes= MidiUtils_QVGT.decodeFromMidi (MidiUtils.ensureAllMidiDataBytes (bytes), Patch_QGVT.DECODED_PATCH_SIZE);
-        // XXX Should consider to NOT clone the input data?
+        // Decoding checks for MIDI Data Bytes (only).
         this.encodedBytes = bytes.clone ();
+        this.decodedBytes = new byte[Patch_QGVT.DECODED_PATCH_SIZE];
+        MidiUtils_QVGT.decodeFromMidi (this.encodedBytes, 0, Patch_QGVT.ENCODED_PATCH_SIZE,
+                                       this.decodedBytes, 0, Patch_QGVT.DECODED_PATCH_SIZE);
         break;
       default:
         throw new IllegalArgumentException ();
     }
-    // Check additional values indirectly through getName () and getConfiguration ().
     try
     {
-      getName ();
-      getConfiguration ();
+      this.name = Patch_QGVT.decodeName (this.decodedBytes);
+      this.configuration = Patch_QGVT.decodeConfiguration (this.decodedBytes);
+    }
+    catch (RuntimeException re)
+    {
+      throw new IllegalArgumentException ();
+    }
+  }
+  
+  /** Instantiation from freshly created decoded and encoded patch data, taking ownership of both arrays.
+   * 
+   * @param decodedBytes The decoded bytes, non-{@code null} and of size {@link Patch_QGVT#DECODED_PATCH_SIZE}.
+   * @param encodedBytes The encoded bytes (matching the decoded bytes),
+   *                       non-{@code null} and of size {@link Patch_QGVT#ENCODED_PATCH_SIZE}.
+   * 
+   * @throws IllegalArgumentException If either array is {@code null} or of inappropriate size,
+   *                                    or contains otherwise illegal values for a Quadraverb GT patch.
+   * 
+   */
+  private Patch_QGVT (final byte[] decodedBytes, final byte[] encodedBytes)
+  {
+    if (decodedBytes == null || decodedBytes.length != Patch_QGVT.DECODED_PATCH_SIZE
+      || encodedBytes == null || encodedBytes.length != Patch_QGVT.ENCODED_PATCH_SIZE)
+      throw new IllegalArgumentException ();
+    this.decodedBytes = decodedBytes;
+    this.encodedBytes = encodedBytes;
+    try
+    {
+      this.name = Patch_QGVT.decodeName (this.decodedBytes);
+      this.configuration = Patch_QGVT.decodeConfiguration (this.decodedBytes);
     }
     catch (RuntimeException re)
     {
@@ -155,6 +188,35 @@ public final class Patch_QGVT
     return new Patch_QGVT (bytes);
   }
   
+  /** Generates a patch directly from the encoded patch data in (typically) a MIDI System Exclusive message.
+   * 
+   * <p>
+   * The encoded patch data is decoded straight from the message,
+   * avoiding the intermediate copies made by {@link #fromBytes}.
+   * 
+   * @param rawMidiMessage The array holding the encoded patch data, non-{@code null}.
+   * @param offset         The offset of the encoded patch data (of size {@link Patch_QGVT#ENCODED_PATCH_SIZE}) in the array.
+   * 
+   * @return The patch.
+   * 
+   * @throws IllegalArgumentException If the array is {@code null}, too small for the given offset,
+   *                                    has unexpected MIDI Control Bytes in the patch data,
+   *                                    or contains otherwise illegal values for a Quadraverb GT patch.
+   * 
+   * @see Patch_QGVT#ENCODED_PATCH_SIZE
+   * 
+   */
+  public static Patch_QGVT fromEncodedBytes (final byte[] rawMidiMessage, final int offset)
+  {
+    if (rawMidiMessage == null || offset < 0 || offset + Patch_QGVT.ENCODED_PATCH_SIZE > rawMidiMessage.length)
+      throw new IllegalArgumentException ();
+    final byte[] decodedBytes = new byte[Patch_QGVT.DECODED_PATCH_SIZE];
+    MidiUtils_QVGT.decodeFromMidi (rawMidiMessage, offset, Patch_QGVT.ENCODED_PATCH_SIZE,
+                                   decodedBytes, 0, Patch_QGVT.DECODED_PATCH_SIZE);
+    final byte[] encodedBytes = Arrays.copyOfRange (rawMidiMessage, offset, offset + Patch_QGVT.ENCODED_PATCH_SIZE);
+    return new Patch_QGVT (decodedBytes, encodedBytes);
+  }
+  
   /** Returns a copy of this patch with another name.
    * 
    * @param name The patch name of the copy.
@@ -225,6 +287,36 @@ public final class Patch_QGVT
     return this.decodedBytes.clone ();
   }
   
+  /** Returns a read-only view on the (raw) decoded bytes of this (decoded) patch.
+   * 
+   * <p>
+   * Unlike {@link #getDecodedBytes}, this method does not copy the patch data.
+   * 
+   * @return A read-only view on the (raw) decoded bytes of this (decoded) patch,
+   *         with capacity {@link Patch_QGVT#DECODED_PATCH_SIZE}.
+   * 
+   */
+  public final ByteBuffer getDecodedBytesView ()
+  {
+    return ByteBuffer.wrap (this.decodedBytes).asReadOnlyBuffer ();
+  }
+  
+  /** Returns the (raw) decoded bytes of this (decoded) patch without copying them.
+   * 
+   * <p>
+   * Reserved for internal use in this package;
+   * the returned array must <i>not</i> be modified.
+   * 
+   * @return The (raw) decoded bytes of this (decoded) patch, non-{@code null} and of size {@link Patch_QGVT#DECODED_PATCH_SIZE}.
+   * 
+   * @see #getDecodedBytes
+   * 
+   */
+  final byte[] getDecodedBytesNoCopy ()
+  {
+    return this.decodedBytes;
+  }
+  
   /** Returns the (raw) encoded bytes of this patch.
    * 
    * @return The (raw) encoded bytes of this patch, non-{@code null} and of size {@link Patch_QGVT#ENCODED_PATCH_SIZE}.
@@ -235,6 +327,35 @@ public final class Patch_QGVT
     return this.encodedBytes.clone ();
   }
   
+  /** Returns a read-only view on the (raw) encoded bytes of this patch.
+   * 
+   * <p>
+   * Unlike {@link #getEncodedBytes}, this method does not copy the patch data.
+   * 
+   * @return A read-only view on the (raw) encoded bytes of this patch, with capacity {@link Patch_QGVT#ENCODED_PATCH_SIZE}.
+   * 
+   */
+  public final ByteBuffer getEncodedBytesView ()
+  {
+    return ByteBuffer.wrap (this.encodedBytes).asReadOnlyBuffer ();
+  }
+  
+  /** Returns the (raw) encoded bytes of this patch without copying them.
+   * 
+   * <p>
+   * Reserved for internal use in this package;
+   * the returned array must <i>not</i> be modified.
+   * 
+   * @return The (raw) encoded bytes of this patch, non-{@code null} and of size {@link Patch_QGVT#ENCODED_PATCH_SIZE}.
+   * 
+   * @see #getEncodedBytes
+   * 
+   */
+  final byte[] getEncodedBytesNoCopy ()
+  {
+    return this.encodedBytes;
+  }
+  
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
   //
   // NAME
@@ -248,9 +369,16 @@ public final class Patch_QGVT
    * 
    */
   public final String getName ()
+  {
+    return this.name;
+  }
+  
+  private final String name;
+  
+  private static String decodeName (final byte[] decodedBytes)
   {
     final byte[] nameBytes = new byte[14];
-    System.arraycopy (this.decodedBytes, 0x6A, nameBytes, 0, 14);
+    System.arraycopy (decodedBytes, 0x6A, nameBytes, 0, 14);
     try
     {
       return new String (nameBytes, "US-ASCII").trim ();          
@@ -310,10 +438,19 @@ public final class Patch_QGVT
    */
   public final Configuration getConfiguration ()
   {
-    final int configurationInt = this.decodedBytes[Patch_QGVT.OFFSET_CONFIGURATION];
-    if (configurationInt < 0 || configurationInt > 7)
+    return this.configuration;
+  }
+  
+  private final Configuration configuration;
+  
+  private static final Configuration[] CONFIGURATIONS = Configuration.values ();
+  
+  private static Configuration decodeConfiguration (final byte[] decodedBytes)
+  {
+    final int configurationInt = decodedBytes[Patch_QGVT.OFFSET_CONFIGURATION];
+    if (configurationInt < 0 || configurationInt >= Patch_QGVT.CONFIGURATIONS.length)
       throw new RuntimeException ();
-    return Configuration.values ()[configurationInt];
+    return Patch_QGVT.CONFIGURATIONS[configurationInt];
   }
   
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -355,16 +492,26 @@ public final class Patch_QGVT
    */
   public final MidiDevice_QVGT.EqModeConfig1 getEqMode_Config1 ()
   {
-    switch (getConfiguration ())
+    // Racy single-check; enum constants are safely published.
+    MidiDevice_QVGT.EqModeConfig1 eqMode = this.eqModeConfig1;
+    if (eqMode == null)
     {
-      case C1_EQ_PCH_DL_REV:
-        final boolean bitValue = (this.decodedBytes[Patch_QGVT.OFFSET_EQ_MODE] & 0x80) != 0;
-        return MidiDevice_QVGT.EqModeConfig1.values ()[bitValue ? 1 : 0];
-      default:
-        throw new RuntimeException ();
+      switch (this.configuration)
+      {
+        case C1_EQ_PCH_DL_REV:
+          final boolean bitValue = (this.decodedBytes[Patch_QGVT.OFFSET_EQ_MODE] & 0x80) != 0;
+          eqMode = MidiDevice_QVGT.EqModeConfig1.values ()[bitValue ? 1 : 0];
+          break;
+        default:
+          throw new RuntimeException ();
+      }
+      this.eqModeConfig1 = eqMode;
     }
+    return eqMode;
   }
   
+  private MidiDevice_QVGT.EqModeConfig1 eqModeConfig1 = null;
+  
   /** Returns the eq mode of this program, provided it is in configuration 4.
    * 
    * <p>
@@ -381,16 +528,26 @@ public final class Patch_QGVT
    */
   public final MidiDevice_QVGT.EqModeConfig4 getEqMode_Config4 ()
   {
-    switch (getConfiguration ())
+    // Racy single-check; enum constants are safely published.
+    MidiDevice_QVGT.EqModeConfig4 eqMode = this.eqModeConfig4;
+    if (eqMode == null)
     {
-      case C4_5EQ_PCH_DL:
-        final boolean bitValue = (this.decodedBytes[Patch_QGVT.OFFSET_EQ_MODE] & 0x80) != 0;
-        return MidiDevice_QVGT.EqModeConfig4.values ()[bitValue ? 1 : 0];
-      default:
-        throw new RuntimeException ();
+      switch (this.configuration)
+      {
+        case C4_5EQ_PCH_DL:
+          final boolean bitValue = (this.decodedBytes[Patch_QGVT.OFFSET_EQ_MODE] & 0x80) != 0;
+          eqMode = MidiDevice_QVGT.EqModeConfig4.values ()[bitValue ? 1 : 0];
+          break;
+        default:
+          throw new RuntimeException ();
+      }
+      this.eqModeConfig4 = eqMode;
     }
+    return eqMode;
   }
   
+  private MidiDevice_QVGT.EqModeConfig4 eqModeConfig4 = null;
+  
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
   //
   // PITCH MODE [CONFIGURATIONS 1 AND 4 ONLY]
@@ -432,22 +589,31 @@ public final class Patch_QGVT
    */
   public final MidiDevice_QVGT.PitchMode getPitchMode_Configs14 ()
   {
-    switch (getConfiguration ())
+    MidiDevice_QVGT.PitchMode pitchMode = this.pitchMode;
+    if (pitchMode == null)
     {
-      case C1_EQ_PCH_DL_REV:
-      case C4_5EQ_PCH_DL:
-        final int byteValue = this.decodedBytes[Patch_QGVT.OFFSET_PITCH_MODE];
-        if (byteValue < 0)
-          throw new RuntimeException ();
-        final MidiDevice_QVGT.PitchMode[] enumValues = MidiDevice_QVGT.PitchMode.values ();
-        if (byteValue >= enumValues.length)
+      switch (this.configuration)
+      {
+        case C1_EQ_PCH_DL_REV:
+        case C4_5EQ_PCH_DL:
+          final int byteValue = this.decodedBytes[Patch_QGVT.OFFSET_PITCH_MODE];
+          if (byteValue < 0)
+            throw new RuntimeException ();
+          final MidiDevice_QVGT.PitchMode[] enumValues = MidiDevice_QVGT.PitchMode.values ();
+          if (byteValue >= enumValues.length)
+            throw new RuntimeException ();
+          pitchMode = enumValues[byteValue];
+          break;
+        default:
           throw new RuntimeException ();
-        return enumValues[byteValue];
-      default:
-        throw new RuntimeException ();
+      }
+      this.pitchMode = pitchMode;
     }
+    return pitchMode;
   }
   
+  private MidiDevice_QVGT.PitchMode pitchMode = null;
+  
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
   //
   // REVERB MODE [CONFIGURATIONS 1, 2, 5, 6, 7 ONLY]
@@ -500,36 +666,53 @@ public final class Patch_QGVT
    */
   public final MidiDevice_QVGT.ReverbMode getReverbMode ()
   {
-    switch (getConfiguration ())
+    MidiDevice_QVGT.ReverbMode reverbMode = this.reverbMode;
+    if (reverbMode == null)
     {
-      case C1_EQ_PCH_DL_REV:
-      case C2_LES_DL_REV:
-      case C5_3EQ_REV:
-      case C6_RING_DL_REV:
-      case C7_RESO_DL_REV:
-        final int byteValue = this.decodedBytes[Patch_QGVT.OFFSET_REVERB_MODE];
-        if (byteValue < 0)
+      switch (this.configuration)
+      {
+        case C1_EQ_PCH_DL_REV:
+        case C2_LES_DL_REV:
+        case C5_3EQ_REV:
+        case C6_RING_DL_REV:
+        case C7_RESO_DL_REV:
+          final int byteValue = this.decodedBytes[Patch_QGVT.OFFSET_REVERB_MODE];
+          if (byteValue < 0)
+            throw new RuntimeException ();
+          final MidiDevice_QVGT.ReverbMode[] enumValues = MidiDevice_QVGT.ReverbMode.values ();
+          if (byteValue >= enumValues.length)
+            throw new RuntimeException ();
+          reverbMode = enumValues[byteValue];
+          break;
+        default:
           throw new RuntimeException ();
-        final MidiDevice_QVGT.ReverbMode[] enumValues = MidiDevice_QVGT.ReverbMode.values ();
-        if (byteValue >= enumValues.length)
-          throw new RuntimeException ();
-        return enumValues[byteValue];
-      default:
-        throw new RuntimeException ();
+      }
+      this.reverbMode = reverbMode;
     }
+    return reverbMode;
   }
   
+  private MidiDevice_QVGT.ReverbMode reverbMode = null;
+  
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
   //
   // EQUALS / HASHCODE
   //
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
   
+  private int hash = 0;
+  
   @Override
   public final int hashCode ()
   {
-    int hash = 3;
-    hash = 23 * hash + Arrays.hashCode (this.decodedBytes);
+    // Racy single-check (like String); zero means not yet computed.
+    int hash = this.hash;
+    if (hash == 0)
+    {
+      hash = 3;
+      hash = 23 * hash + Arrays.hashCode (this.decodedBytes);
+      this.hash = hash;
+    }
     return hash;
   }
 
@@ -543,9 +726,43 @@ public final class Patch_QGVT
     if (getClass () != obj.getClass ())
       return false;
     final Patch_QGVT other = (Patch_QGVT) obj;
+    if (this.hash != 0 && other.hash != 0 && this.hash != other.hash)
+      return false;
     return Arrays.equals (this.decodedBytes, other.decodedBytes);
   }
 
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // INTERNING
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  private static final Map<Patch_QGVT, WeakReference<Patch_QGVT>> INTERNED_PATCHES = new WeakHashMap<> ();
+  
+  /** Returns a canonical instance of this patch.
+   * 
+   * <p>
+   * Equal patches return the same instance, allowing patches seen repeatedly
+   * (e.g., from polling or from patch libraries) to share a single object.
+   * The pool only holds weak references; canonical instances no longer referenced elsewhere are reclaimed.
+   * Use of this method is optional.
+   * 
+   * @return The canonical instance of this patch, equal to this patch.
+   * 
+   */
+  public final Patch_QGVT intern ()
+  {
+    synchronized (Patch_QGVT.INTERNED_PATCHES)
+    {
+      final WeakReference<Patch_QGVT> reference = Patch_QGVT.INTERNED_PATCHES.get (this);
+      final Patch_QGVT interned = (reference != null ? reference.get () : null);
+      if (interned != null)
+        return interned;
+      Patch_QGVT.INTERNED_PATCHES.put (this, new WeakReference<> (this));
+      return this;
+    }
+  }
+
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
   //
   // END OF FILE
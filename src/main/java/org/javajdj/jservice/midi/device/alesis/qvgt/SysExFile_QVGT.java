@@ -0,0 +1,441 @@
+/* 
+ * Copyright 2019 Jan de Jongh <jfcmdejongh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package org.javajdj.jservice.midi.device.alesis.qvgt;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.javajdj.util.hex.HexUtils;
+
+/** Streaming I/O of Alesis Quadraverb GT patches in (MIDI System Exclusive) {@code .syx} files.
+ * 
+ * <p>
+ * A {@code .syx} file is a plain concatenation of MIDI System Exclusive messages
+ * ({@code 0xF0} through {@code 0xF7}), for instance as recorded from a Quadraverb GT bulk dump.
+ * The {@link Reader} frames the messages in files of arbitrary size through a small, reused buffer,
+ * and lazily yields the patches in the Quadraverb GT MIDI Data Dump messages found, together with their program numbers.
+ * Other messages are skipped.
+ * The {@link Writer} streams MIDI Data Dump messages out through a similar buffer.
+ * 
+ * @see MidiUtils_QVGT#createMidiSysExMessage_QVGT_DataDump
+ * 
+ * @author Jan de Jongh {@literal <jfcmdejongh@gmail.com>}
+ * 
+ */
+public final class SysExFile_QVGT
+{
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // LOGGING
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  private static final Logger LOG = Logger.getLogger (SysExFile_QVGT.class.getName ());
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // CONSTRUCTORS / FACTORIES / CLONING
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  /** Prevents instantiation.
+   * 
+   */
+  private SysExFile_QVGT ()
+  {
+  }
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // BUFFER SIZE
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  /** The size of the I/O buffers of readers and writers, in bytes.
+   * 
+   */
+  public final static int BUFFER_SIZE = 64 * 1024;
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // PROGRAM DUMP
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  /** A patch with its program number, as held in a MIDI Data Dump message.
+   * 
+   */
+  public static final class ProgramDump
+  {
+
+    private final int programNumber;
+
+    private final Patch_QGVT patch;
+
+    /** Creates the program dump.
+     * 
+     * @param programNumber The program number, between 0 and 100 ({@link MidiDevice_QVGT#EDIT_BUFFER_PROGRAM_NUMBER}) inclusive.
+     * @param patch         The patch, non-{@code null}.
+     * 
+     * @throws IllegalArgumentException If the program number is out of range, or the patch is {@code null}.
+     * 
+     */
+    public ProgramDump (final int programNumber, final Patch_QGVT patch)
+    {
+      if (programNumber < 0 || programNumber > MidiDevice_QVGT.EDIT_BUFFER_PROGRAM_NUMBER || patch == null)
+        throw new IllegalArgumentException ();
+      this.programNumber = programNumber;
+      this.patch = patch;
+    }
+
+    /** Returns the program number.
+     * 
+     * @return The program number, between 0 and 100 ({@link MidiDevice_QVGT#EDIT_BUFFER_PROGRAM_NUMBER}) inclusive.
+     * 
+     */
+    public final int getProgramNumber ()
+    {
+      return this.programNumber;
+    }
+
+    /** Returns the patch.
+     * 
+     * @return The patch, non-{@code null}.
+     * 
+     */
+    public final Patch_QGVT getPatch ()
+    {
+      return this.patch;
+    }
+
+  }
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // READER
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  /** A streaming reader of the Quadraverb GT MIDI Data Dump messages in a {@code .syx} file.
+   * 
+   * <p>
+   * The reader frames System Exclusive messages across buffer boundaries;
+   * only messages that may be Quadraverb GT MIDI Data Dumps are collected, and those are decoded
+   * only when reached by {@link #next}.
+   * System Real-Time bytes inside a message are ignored,
+   * and any other status byte aborts the message (as on the MIDI wire).
+   * Messages with illegal patch data are logged and skipped.
+   * 
+   * <p>
+   * An {@link IOException} while iterating is rethrown as an {@link UncheckedIOException}.
+   * 
+   * <p>
+   * A reader is not thread-safe.
+   * 
+   */
+  public static final class Reader
+    implements Iterator<ProgramDump>, Closeable
+  {
+
+    private final FileChannel channel;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate (SysExFile_QVGT.BUFFER_SIZE);
+
+    private final byte[] message = new byte[MidiUtils_QVGT.MIDI_DATA_DUMP_MESSAGE_SIZE];
+
+    private int messageLength = 0;
+
+    private boolean inMessage = false;
+
+    private ProgramDump next = null;
+
+    private boolean endOfFile = false;
+
+    /** Opens a reader on given file.
+     * 
+     * @param path The path of the file, non-{@code null}.
+     * 
+     * @throws IllegalArgumentException If the path is {@code null}.
+     * @throws IOException              If the file cannot be opened.
+     * 
+     */
+    public Reader (final Path path)
+      throws IOException
+    {
+      if (path == null)
+        throw new IllegalArgumentException ();
+      this.channel = FileChannel.open (path, StandardOpenOption.READ);
+      this.buffer.limit (0);
+    }
+
+    @Override
+    public final boolean hasNext ()
+    {
+      if (this.next == null && ! this.endOfFile)
+      {
+        try
+        {
+          this.next = readNext ();
+        }
+        catch (IOException ioe)
+        {
+          throw new UncheckedIOException (ioe);
+        }
+        this.endOfFile = (this.next == null);
+      }
+      return this.next != null;
+    }
+
+    @Override
+    public final ProgramDump next ()
+    {
+      if (! hasNext ())
+        throw new NoSuchElementException ();
+      final ProgramDump programDump = this.next;
+      this.next = null;
+      return programDump;
+    }
+
+    private ProgramDump readNext ()
+      throws IOException
+    {
+      final byte[] array = this.buffer.array ();
+      final int messageSize = MidiUtils_QVGT.MIDI_DATA_DUMP_MESSAGE_SIZE;
+      while (true)
+      {
+        if (! this.buffer.hasRemaining ())
+        {
+          this.buffer.clear ();
+          final int bytesRead = this.channel.read (this.buffer);
+          this.buffer.flip ();
+          if (bytesRead < 0)
+            return null;
+          continue;
+        }
+        int position = this.buffer.position ();
+        final int limit = this.buffer.limit ();
+        while (position < limit)
+        {
+          final int b = array[position++] & 0xFF;
+          if (b == 0xF0) // System Exclusive Status; aborts any message in progress.
+          {
+            this.message[0] = (byte) 0xF0;
+            this.messageLength = 1;
+            this.inMessage = true;
+          }
+          else if (! this.inMessage || b >= 0xF8) // Outside message, or System Real-Time.
+            continue;
+          else if (b == 0xF7) // End-Of-Exclusive
+          {
+            this.inMessage = false;
+            if (this.messageLength == messageSize - 1)
+            {
+              this.message[this.messageLength++] = (byte) 0xF7;
+              final ProgramDump programDump = toProgramDump ();
+              if (programDump != null)
+              {
+                this.buffer.position (position);
+                return programDump;
+              }
+            }
+          }
+          else if (b >= 0x80 || this.messageLength == messageSize - 1) // Aborted, or too long for a data dump.
+            this.inMessage = false;
+          else
+            this.message[this.messageLength++] = (byte) b;
+        }
+        this.buffer.position (position);
+      }
+    }
+
+    private ProgramDump toProgramDump ()
+    {
+      if (this.message[1] != 0x00     // 0x00000E: Alesis vendor ID
+        || this.message[2] != 0x00    // 0x00000E: Alesis vendor ID
+        || this.message[3] != 0x0E    // 0x00000E: Alesis vendor ID
+        || this.message[4] != 0x07    // Quadraverb GT device ID
+        || this.message[5] != 0x02    // OpCode: MIDI Data Dump
+        || this.message[6] > MidiDevice_QVGT.EDIT_BUFFER_PROGRAM_NUMBER) // Program Number
+        return null;
+      try
+      {
+        return new ProgramDump (this.message[6], Patch_QGVT.fromEncodedBytes (this.message, 7));
+      }
+      catch (IllegalArgumentException iae)
+      {
+        LOG.log (Level.WARNING, "Skipped illegal Data Dump message: {0}.", HexUtils.bytesToHex (this.message));
+        return null;
+      }
+    }
+
+    @Override
+    public final void close ()
+      throws IOException
+    {
+      this.channel.close ();
+    }
+
+  }
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // WRITER
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  /** A streaming writer of Quadraverb GT MIDI Data Dump messages to a {@code .syx} file.
+   * 
+   * <p>
+   * Messages are formatted straight into a reused buffer, which is written out whenever full,
+   * upon {@link #flush}, and upon {@link #close}.
+   * 
+   * <p>
+   * A writer is not thread-safe.
+   * 
+   */
+  public static final class Writer
+    implements Closeable
+  {
+
+    private final FileChannel channel;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate
+      (SysExFile_QVGT.BUFFER_SIZE - SysExFile_QVGT.BUFFER_SIZE % MidiUtils_QVGT.MIDI_DATA_DUMP_MESSAGE_SIZE);
+
+    /** Opens a writer on given file, creating or truncating it.
+     * 
+     * @param path The path of the file, non-{@code null}.
+     * 
+     * @throws IllegalArgumentException If the path is {@code null}.
+     * @throws IOException              If the file cannot be opened.
+     * 
+     */
+    public Writer (final Path path)
+      throws IOException
+    {
+      if (path == null)
+        throw new IllegalArgumentException ();
+      this.channel = FileChannel.open (path,
+        StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /** Writes a patch as MIDI Data Dump message.
+     * 
+     * @param programNumber The program number, between 0 and 100 ({@link MidiDevice_QVGT#EDIT_BUFFER_PROGRAM_NUMBER}) inclusive.
+     * @param patch         The patch, non-{@code null}.
+     * 
+     * @throws IllegalArgumentException If the program number is out of range, or the patch is {@code null}.
+     * @throws IOException              If writing to the file failed.
+     * 
+     */
+    public final void write (final int programNumber, final Patch_QGVT patch)
+      throws IOException
+    {
+      if (programNumber < 0 || programNumber > MidiDevice_QVGT.EDIT_BUFFER_PROGRAM_NUMBER || patch == null)
+        throw new IllegalArgumentException ();
+      if (this.buffer.remaining () < MidiUtils_QVGT.MIDI_DATA_DUMP_MESSAGE_SIZE)
+        flush ();
+      MidiUtils_QVGT.writeMidiSysExMessage_QVGT_DataDump (patch.getEncodedBytesNoCopy (), programNumber, this.buffer);
+    }
+
+    /** Writes a program dump as MIDI Data Dump message.
+     * 
+     * @param programDump The program dump, non-{@code null}.
+     * 
+     * @throws IllegalArgumentException If the program dump is {@code null}.
+     * @throws IOException              If writing to the file failed.
+     * 
+     */
+    public final void write (final ProgramDump programDump)
+      throws IOException
+    {
+      if (programDump == null)
+        throw new IllegalArgumentException ();
+      write (programDump.getProgramNumber (), programDump.getPatch ());
+    }
+
+    /** Writes program dumps as MIDI Data Dump messages, in iteration order.
+     * 
+     * <p>
+     * The program dumps are consumed one at a time; for instance, a {@link Reader} can be copied straight into a writer.
+     * 
+     * @param programDumps The program dumps, non-{@code null}, without {@code null} elements.
+     * 
+     * @throws IllegalArgumentException If the iterator is {@code null} or yields {@code null}.
+     * @throws IOException              If writing to the file failed.
+     * 
+     */
+    public final void writeAll (final Iterator<ProgramDump> programDumps)
+      throws IOException
+    {
+      if (programDumps == null)
+        throw new IllegalArgumentException ();
+      while (programDumps.hasNext ())
+        write (programDumps.next ());
+    }
+
+    /** Writes out all buffered messages.
+     * 
+     * @throws IOException If writing to the file failed.
+     * 
+     */
+    public final void flush ()
+      throws IOException
+    {
+      this.buffer.flip ();
+      while (this.buffer.hasRemaining ())
+        this.channel.write (this.buffer);
+      this.buffer.clear ();
+    }
+
+    /** Writes out all buffered messages and closes the file.
+     * 
+     * @throws IOException If writing to or closing the file failed.
+     * 
+     */
+    @Override
+    public final void close ()
+      throws IOException
+    {
+      try
+      {
+        flush ();
+      }
+      finally
+      {
+        this.channel.close ();
+      }
+    }
+
+  }
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // END OF FILE
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+}
@@ -24,6 +24,7 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.function.Function;
 import java.util.logging.Logger;
 import javax.swing.JComponent;
@@ -36,6 +37,7 @@ import javax.swing.filechooser.FileSystemView;
 import org.javajdj.jservice.midi.device.MidiDevice;
 import org.javajdj.jservice.midi.device.alesis.qvgt.MidiDevice_QVGT;
 import org.javajdj.jservice.midi.device.alesis.qvgt.Patch_QGVT;
+import org.javajdj.jservice.midi.device.alesis.qvgt.SysExFile_QVGT;
 import org.javajdj.jservice.midi.device.swing.parameter.JMidiDeviceParameter;
 import org.javajdj.swing.DefaultMouseListener;
 import org.javajdj.swing.JColorCheckBox;
@@ -125,6 +127,35 @@ final class JQVGTPanel_PATCH_IO
         if (returnValue == JFileChooser.APPROVE_OPTION)
         {
           final File selectedFile = jfc.getSelectedFile ();
+          if (selectedFile.getName ().toLowerCase ().endsWith (".syx"))
+          {
+            // Load the first patch in a (MIDI System Exclusive) bank or dump file.
+            try (final SysExFile_QVGT.Reader reader = new SysExFile_QVGT.Reader (selectedFile.toPath ()))
+            {
+              if (! reader.hasNext ())
+              {
+                JOptionPane.showMessageDialog (null,
+                  "Parse Error [no Alesis Quadraverb GT patch in SysEx file]: " + selectedFile.getAbsolutePath (),
+                  "Problem",
+                  JOptionPane.ERROR_MESSAGE);
+                return;
+              }
+              getMidiDevice ().put (MidiDevice_QVGT.EDIT_BUFFER_NAME, reader.next ().getPatch ());
+              JQVGTPanel_PATCH_IO.this.jPatchFile.setText (selectedFile.getName ());
+              JOptionPane.showMessageDialog (null,
+                "Loaded Patch from " + selectedFile.getAbsolutePath (),
+                "Message",
+                JOptionPane.INFORMATION_MESSAGE);            
+            }
+            catch (IOException | UncheckedIOException ie)
+            {
+              JOptionPane.showMessageDialog (null,
+                "I/O Error: " + selectedFile.getAbsolutePath (),
+                "Problem",
+                JOptionPane.ERROR_MESSAGE);
+            }
+            return;
+          }
           try (final FileInputStream file = new FileInputStream (selectedFile))
           {
             final byte[] patchBytes = new byte[Patch_QGVT.DECODED_PATCH_SIZE];
@@ -18,15 +18,20 @@ package org.javajdj.jservice.midi.device.rolandboss;
 
 import org.javajdj.jservice.midi.device.AbstractMidiDevice;
 import org.javajdj.jservice.midi.device.MidiDevice;
+import org.javajdj.jservice.midi.device.MidiDeviceListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.javajdj.util.hex.HexUtils;
 import org.javajdj.jservice.midi.MidiService;
-import org.javajdj.util.hex.ByteUtils;
+import org.javajdj.jservice.midi.device.support.MidiDeviceParameterBatchListener;
+import org.javajdj.jservice.midi.device.support.ParameterUpdateBatch;
 
 /** Partial implementation of {@link MidiDevice} for Roland-Boss devices.
  * 
@@ -72,9 +77,12 @@ public abstract class AbstractMidiDevice_RolandBoss<D extends ParameterDescripto
 
   private final Set<ParameterDescriptor_RolandBoss> patchParameters = new LinkedHashSet<> ();
   
-  private final Map<Byte, Set<ParameterDescriptor_RolandBoss>> controllers = new TreeMap<> ();
+  /** The descriptors for each MIDI controller (0 through 127 inclusive), {@code null} if none.
+   * 
+   */
+  private final ParameterDescriptor_RolandBoss[][] controllers = new ParameterDescriptor_RolandBoss[128][];
   
-  private final Map<Long, Set<ParameterDescriptor_RolandBoss>> addresses = new TreeMap<> ();
+  private final AddressIndex_RolandBoss addresses = new AddressIndex_RolandBoss ();
   
   @Override
   protected void registerParameter (final D parameterDescriptor)
@@ -92,22 +100,26 @@ public abstract class AbstractMidiDevice_RolandBoss<D extends ParameterDescripto
       case MidiControlChange:
       {
         final byte controller = parameterDescriptor.getController ();
-        if (! this.controllers.containsKey (controller))
-          this.controllers.put (controller, new LinkedHashSet<> ());
-        if (this.controllers.get (controller).contains (parameterDescriptor)) // XXX Weird test: Should test on values of p-d map?
+        if (controller < 0)
           throw new IllegalArgumentException ();
-        this.controllers.get (controller).add (parameterDescriptor);
+        final ParameterDescriptor_RolandBoss[] controllerDescriptors = this.controllers[controller];
+        if (controllerDescriptors == null)
+          this.controllers[controller] = new ParameterDescriptor_RolandBoss[]{parameterDescriptor};
+        else
+        {
+          for (final ParameterDescriptor_RolandBoss controllerDescriptor : controllerDescriptors)
+            if (controllerDescriptor.equals (parameterDescriptor)) // XXX Weird test: Should test on values of p-d map?
+              throw new IllegalArgumentException ();
+          final ParameterDescriptor_RolandBoss[] newControllerDescriptors =
+            Arrays.copyOf (controllerDescriptors, controllerDescriptors.length + 1);
+          newControllerDescriptors[controllerDescriptors.length] = parameterDescriptor;
+          this.controllers[controller] = newControllerDescriptors;
+        }
         break;
       }
       case MidiSysExRolandBoss_RQ1_DT1:
       {
-        final Long addressAsLong = ByteUtils.bytes4ToLong (parameterDescriptor.getAddressAsBytes (), 0);
-        if (! this.addresses.containsKey (addressAsLong))
-          this.addresses.put (addressAsLong, new LinkedHashSet<> ());
-        final Set<ParameterDescriptor_RolandBoss> addressDescriptors = this.addresses.get (addressAsLong);
-        if (addressDescriptors.contains (parameterDescriptor))
-          throw new IllegalArgumentException ();
-        addressDescriptors.add (parameterDescriptor);
+        this.addresses.add (parameterDescriptor);
         break;
       }
       default:
@@ -148,6 +160,35 @@ public abstract class AbstractMidiDevice_RolandBoss<D extends ParameterDescripto
     }
   }
   
+  /** Sends an RQ1 message for a range of addresses, typically a range planned through {@link #planRQ1Ranges}.
+   * 
+   * <p>
+   * The replies (DT1) are dispatched to all parameters lying entirely within the range they cover.
+   * 
+   * @param address The linear start address of the range, non-negative.
+   * @param length  The length of the range, strictly positive.
+   * 
+   * @throws IllegalArgumentException If the start address is negative or out of range, or the length is not strictly positive.
+   * 
+   * @see AddressIndex_RolandBoss#toLinearAddress
+   * 
+   */
+  protected void sendMidiSysExMessage_RolandBoss_RQ1 (final int address, final int length)
+  {
+    if (length <= 0)
+      throw new IllegalArgumentException ();
+    final byte[] addressBytes = AddressIndex_RolandBoss.fromLinearAddress (address);
+    final byte[] sizeBytes = AddressIndex_RolandBoss.fromLinearAddress (length);
+    synchronized (this)
+    {
+      if (getStatus () != Status.STOPPED && getMidiService () != null)
+      {
+        final byte[] midiMessage = MidiUtils_RolandBoss.createMidiSysExMessage_RolandBoss_RQ1 (addressBytes, sizeBytes);
+        getMidiService ().sendRawMidiMessage (midiMessage);
+      }
+    }
+  }
+  
   protected void sendMidiSysExMessage_RolandBoss_DT1 (final String key, final byte[] value)
   {
     if (key == null || ! keySet ().contains (key))
@@ -159,6 +200,8 @@ public abstract class AbstractMidiDevice_RolandBoss<D extends ParameterDescripto
       != ParameterDescriptor_RolandBoss.ParameterType_RolandBoss.MidiSysExRolandBoss_RQ1_DT1)
       throw new IllegalArgumentException ();
     final byte[] address = parameterDescriptor_RolandBoss.getAddressAsBytes ();
+    // The next value read from the device must be reported, even if the device ignores this write.
+    this.addresses.forgetValues (AddressIndex_RolandBoss.toLinearAddress (address, 0), value.length);
     synchronized (this)
     {
       if (getStatus () != Status.STOPPED && getMidiService () != null)
@@ -169,6 +212,81 @@ public abstract class AbstractMidiDevice_RolandBoss<D extends ParameterDescripto
     }
   }
   
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // MIDI SERVICE [AbstractMidiDevice]
+  // TX HANDLING
+  //
+  // RQ1 PLANNING
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  /** The maximum length of a range obtained by merging the ranges of multiple parameters in a single RQ1 message.
+   * 
+   * <p>
+   * Limits the size of the (DT1) replies; the range of a single parameter may exceed this length.
+   * 
+   * @see #planRQ1Ranges
+   * 
+   */
+  public final static int RQ1_MAXIMUM_MERGED_LENGTH = 0x80;
+  
+  /** Plans the RQ1 messages needed to request the values of given parameters from the device.
+   * 
+   * <p>
+   * The address ranges of the parameters are sorted, and adjacent or overlapping ranges are merged,
+   * as long as the merged range does not exceed {@link #RQ1_MAXIMUM_MERGED_LENGTH},
+   * resulting in the minimum number of RQ1 messages under that constraint.
+   * The combined replies are split over the parameters by the address index of this device.
+   * 
+   * @param keys The parameter keys, non-{@code null}, each registered and of type
+   *               {@link ParameterDescriptor_RolandBoss.ParameterType_RolandBoss#MidiSysExRolandBoss_RQ1_DT1}.
+   * 
+   * @return The planned ranges in ascending order of address,
+   *         each as a two-element array holding the linear start address and the length.
+   * 
+   * @throws IllegalArgumentException If the collection is {@code null},
+   *                                    or holds an unknown key or a key of another parameter type.
+   * 
+   * @see #sendMidiSysExMessage_RolandBoss_RQ1(int, int)
+   * 
+   */
+  protected final int[][] planRQ1Ranges (final Collection<String> keys)
+  {
+    if (keys == null)
+      throw new IllegalArgumentException ();
+    final int[][] ranges = new int[keys.size ()][];
+    int n = 0;
+    for (final String key : keys)
+    {
+      final ParameterDescriptor_RolandBoss pd = (key != null ? getParameterDescriptor (key) : null);
+      if (pd == null
+        || pd.getParameterType_RolandBoss () != ParameterDescriptor_RolandBoss.ParameterType_RolandBoss.MidiSysExRolandBoss_RQ1_DT1)
+        throw new IllegalArgumentException ();
+      ranges[n++] = new int[]{AddressIndex_RolandBoss.toLinearAddress (pd.getAddressAsBytes (), 0), pd.getLength ()};
+    }
+    Arrays.sort (ranges, (final int[] r1, final int[] r2) -> Integer.compare (r1[0], r2[0]));
+    final List<int[]> plan = new ArrayList<> ();
+    for (final int[] range : ranges)
+    {
+      final int[] last = (plan.isEmpty () ? null : plan.get (plan.size () - 1));
+      final int end = range[0] + range[1];
+      if (last != null && range[0] <= last[0] + last[1])
+      {
+        final int mergedEnd = Math.max (last[0] + last[1], end);
+        if (mergedEnd == last[0] + last[1])
+          continue; // Contained.
+        if (mergedEnd - last[0] <= AbstractMidiDevice_RolandBoss.RQ1_MAXIMUM_MERGED_LENGTH)
+        {
+          last[1] = mergedEnd - last[0];
+          continue;
+        }
+      }
+      plan.add (new int[]{range[0], range[1]});
+    }
+    return plan.toArray (new int[plan.size ()][]);
+  }
+  
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
   //
   // MIDI SERVICE [AbstractMidiDevice]
@@ -196,9 +314,24 @@ public abstract class AbstractMidiDevice_RolandBoss<D extends ParameterDescripto
       // XXX NOT GOOD... THIS BYPASSES ANY VALUE CONVERSION AND ASSUMES THE VALUE IS ALWAYS A SINGLE BYTE... XXX
       // SUGGESTION: AbstractMidiDevice_RolandBoss.this.onParameterReadFromDevice
       //  (parameterDescriptor_RolandBoss.getParameterName (), new byte[]{(byte) patch});
-      super.updateParameterFromDevice (parameterDescriptor_RolandBoss.getParameterName (), Byte.valueOf ((byte) patch));
+      updateParameterFromDeviceBatched (parameterDescriptor_RolandBoss.getParameterName (), Byte.valueOf ((byte) patch));
   }
 
+  /** The (single-byte) Control Change values 0 through 127, each at its own index; never modified.
+   * 
+   * <p>
+   * Allows the value of a received Control Change to be passed as a range
+   * (see {@link #onParameterReadFromDevice(String, byte[], int, int)}), without allocating an array for it.
+   * 
+   */
+  private final static byte[] CONTROL_CHANGE_VALUES = new byte[128];
+  
+  static
+  {
+    for (int value = 0; value < AbstractMidiDevice_RolandBoss.CONTROL_CHANGE_VALUES.length; value++)
+      AbstractMidiDevice_RolandBoss.CONTROL_CHANGE_VALUES[value] = (byte) value;
+  }
+  
   @Override
   protected void onMidiRxControlChange (final int midiChannel, final int controller, final int value)
   {
@@ -207,10 +340,20 @@ public abstract class AbstractMidiDevice_RolandBoss<D extends ParameterDescripto
       throw new RuntimeException ();
     if (value < 0 || value > 127)
       throw new RuntimeException ();
-    final Set<ParameterDescriptor_RolandBoss> parameters = this.controllers.get ((byte) controller);
+    final ParameterDescriptor_RolandBoss[] parameters = this.controllers[controller];
     if (parameters != null)
-      for (final ParameterDescriptor_RolandBoss parameter : parameters)
-        onParameterReadFromDevice (parameter.getParameterName (), new byte[]{(byte) value});        
+    {
+      beginParameterBatch ();
+      try
+      {
+        for (final ParameterDescriptor_RolandBoss parameter : parameters)
+          onParameterReadFromDevice (parameter.getParameterName (), AbstractMidiDevice_RolandBoss.CONTROL_CHANGE_VALUES, value, 1);
+      }
+      finally
+      {
+        endParameterBatch ();
+      }
+    }
   }
   
   @Override
@@ -240,29 +383,75 @@ public abstract class AbstractMidiDevice_RolandBoss<D extends ParameterDescripto
       && (rawMidiMessage[7] & 0xFF) == 0x12 // DT1
       && (rawMidiMessage[rawMidiMessage.length - 1] & 0xFF) == 0xF7)
     {
-      final long address = ByteUtils.bytes4ToLong (rawMidiMessage, 8);
+      final int address;
+      try
+      {
+        address = AddressIndex_RolandBoss.toLinearAddress (rawMidiMessage, 8);
+      }
+      catch (IllegalArgumentException iae)
+      {
+        LOG.log (Level.WARNING, "Dropped SysEx DT1 message with illegal address: {0}.", HexUtils.bytesToHex (rawMidiMessage));
+        return;
+      }
       final int length = rawMidiMessage.length - 14;
       //LOG.log (Level.INFO, "Found address: {0}.", address);
-      if (! this.addresses.containsKey (address))
+      // Every parameter lying within the range covered by the message receives its slice of the data,
+      // but only if that slice changed since it was last received.
+      final AddressIndex_RolandBoss.Dispatch dispatch = this.addresses.resolve (address, length);
+      if (dispatch.descriptors.length == 0)
       {
         LOG.log (Level.WARNING, "Dropped SysEx DT1 message with unknown address: {0}.", HexUtils.bytesToHex (rawMidiMessage));
         return;
       }
-      for (final ParameterDescriptor_RolandBoss pd : this.addresses.get (address))
+      beginParameterBatch ();
+      try
       {
-        if (length == pd.getLength ())
+        for (int i = 0; i < dispatch.descriptors.length; i++)
         {
-          final byte[] data = new byte[length];
-          System.arraycopy (rawMidiMessage, 12, data, 0, length);
+          final ParameterDescriptor_RolandBoss pd = dispatch.descriptors[i];
+          final int offset = 12 + dispatch.offsets[i];
+          if (! this.addresses.updateValue (dispatch, i, rawMidiMessage, offset))
+            continue;
           // LOG.log (Level.INFO, "onMidiRxSysEx, key={0}", pd.getParameterName ());
-          onParameterReadFromDevice (pd.getParameterName (), data);
+          try
+          {
+            onParameterReadFromDevice (pd.getParameterName (), rawMidiMessage, offset, dispatch.lengths[i]);
+          }
+          catch (RuntimeException re)
+          {
+            // Do not skip the next (identical) value for this parameter as already processed.
+            this.addresses.forgetValue (dispatch, i);
+            throw re;
+          }
         }
       }
+      finally
+      {
+        endParameterBatch ();
+      }
+      onDT1Received (address, length);
     }
     else
       LOG.log (Level.WARNING, "Dropped unknown SysEx message: {0}.", HexUtils.bytesToHex (rawMidiMessage));
   }
   
+  /** Notifies the reception (and processing) of a DT1 message for a known range of addresses.
+   * 
+   * <p>
+   * Invoked after the parameters within the range have been updated;
+   * typically used to match replies with outstanding RQ1 requests.
+   * The default implementation does nothing.
+   * 
+   * @param address The linear start address of the range.
+   * @param length  The length of the range.
+   * 
+   * @see #sendMidiSysExMessage_RolandBoss_RQ1(int, int)
+   * 
+   */
+  protected void onDT1Received (final int address, final int length)
+  {
+  }
+  
   protected void onIdReply (final byte deviceId,
                             final byte[] deviceFamilyCode,
                             final byte[] deviceFamilyNumber,
@@ -286,7 +475,43 @@ public abstract class AbstractMidiDevice_RolandBoss<D extends ParameterDescripto
   //
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
-  protected void onParameterReadFromDevice (final String key, final byte[] value)
+  /** Forgets the values last received from the device for all RQ1/DT1 parameters.
+   * 
+   * <p>
+   * Parameters in DT1 messages are only converted and reported if their bytes changed since they were last received.
+   * After this call, the next value received for each parameter is reported, changed or not;
+   * typically invoked when (re)starting the polling of the device.
+   * 
+   */
+  protected final void forgetParameterValuesFromDevice ()
+  {
+    this.addresses.forgetValues ();
+  }
+  
+  protected final void onParameterReadFromDevice (final String key, final byte[] value)
+  {
+    if (value == null)
+      throw new IllegalArgumentException ();
+    onParameterReadFromDevice (key, value, 0, value.length);
+  }
+  
+  /** Processes a parameter value read from the device, held in a range of a byte array.
+   * 
+   * <p>
+   * The range is converted in situ (see {@link ParameterDescriptor_RolandBoss#convertFromDevice(byte[], int, int)});
+   * in particular, it may be part of a received MIDI message.
+   * Sub-classes overriding this method must not retain the array.
+   * 
+   * @param key    The parameter key, non-{@code null}.
+   * @param bytes  The array holding the value, non-{@code null}.
+   * @param offset The offset of the value in the array.
+   * @param length The length of the value, which must match the length of the parameter.
+   * 
+   * @throws IllegalArgumentException If the key is {@code null} or unknown, the array is {@code null},
+   *                                    or the range is out of bounds or has illegal length.
+   * 
+   */
+  protected void onParameterReadFromDevice (final String key, final byte[] bytes, final int offset, final int length)
   {
     
     if (key == null || ! keySet ().contains (key))
@@ -294,17 +519,100 @@ public abstract class AbstractMidiDevice_RolandBoss<D extends ParameterDescripto
     final ParameterDescriptor_RolandBoss parameterDescriptor_RolandBoss = getParameterDescriptor (key);
     if (parameterDescriptor_RolandBoss == null)
       throw new IllegalArgumentException ();
-    if (value == null || value.length != parameterDescriptor_RolandBoss.getLength ())
+    if (bytes == null || length != parameterDescriptor_RolandBoss.getLength ())
       throw new IllegalArgumentException ();
     
-    final Object oValue = parameterDescriptor_RolandBoss.convertFromDevice (value);
+    final Object oValue = parameterDescriptor_RolandBoss.convertFromDevice (bytes, offset, length);
     if (oValue == null)
       throw new RuntimeException ();
     
-    updateParameterFromDevice (key, oValue);
+    updateParameterFromDeviceBatched (key, oValue);
     
   }
   
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // MIDI SERVICE [AbstractMidiDevice]
+  // RX HANDLING
+  //
+  // PARAMETER UPDATE BATCHES
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  /** The batches of parameter updates from the device, one per thread.
+   * 
+   * <p>
+   * Batches only coalesce updates;
+   * the updates are still applied (and reported) per key,
+   * followed by a single report of all updates in the batch to {@link MidiDeviceParameterBatchListener}s.
+   * 
+   * @see ParameterUpdateBatch
+   * 
+   */
+  private final ParameterUpdateBatch parameterBatch = new ParameterUpdateBatch (new ParameterUpdateBatch.Target ()
+  {
+    
+    @Override
+    public final void applyParameterUpdate (final String key, final Object value)
+    {
+      if (value == null)
+        invalidateParameterFromDevice (key);
+      else
+        updateParameterFromDevice (key, value);
+    }
+    
+    @Override
+    public final void parameterUpdatesApplied (final Map<String, Object> updates)
+    {
+      fireParametersChanged (updates);
+    }
+    
+  });
+  
+  protected void fireParametersChanged (final Map<String, Object> changes)
+  {
+    final Set<MidiDeviceListener> midiDeviceListenersCopy = getMidiDeviceListenersCopy ();
+    for (final MidiDeviceListener l : midiDeviceListenersCopy)
+      if (l instanceof MidiDeviceParameterBatchListener)
+        ((MidiDeviceParameterBatchListener) l).parametersChanged (changes);
+  }
+  
+  /** Opens (or nests) a batch of parameter updates from the device on the current thread.
+   * 
+   * <p>
+   * Each call must be matched by a call to {@link #endParameterBatch}, typically in a {@code finally} block.
+   * 
+   * @see ParameterUpdateBatch#begin
+   * 
+   */
+  protected final void beginParameterBatch ()
+  {
+    this.parameterBatch.begin ();
+  }
+  
+  /** Closes a batch of parameter updates from the device on the current thread.
+   * 
+   * @see ParameterUpdateBatch#end
+   * 
+   */
+  protected final void endParameterBatch ()
+  {
+    this.parameterBatch.end ();
+  }
+  
+  /** Updates (or, with a {@code null} value, invalidates) a parameter from the device, respecting an open batch (if any).
+   * 
+   * @param key   The key, must be registered.
+   * @param value The new value, {@code null} for invalidation.
+   * 
+   * @see ParameterUpdateBatch#update
+   * 
+   */
+  protected final void updateParameterFromDeviceBatched (final String key, final Object value)
+  {
+    this.parameterBatch.update (key, value);
+  }
+  
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
   //
   // Map.put IMPLEMENTATION
@@ -0,0 +1,487 @@
+/* 
+ * Copyright 2019 Jan de Jongh <jfcmdejongh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package org.javajdj.jservice.midi.device.rolandboss;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/** An interval index over the (7-bit) address space of a Roland-Boss device,
+ *  holding the parameter descriptors obtained through RQ1/DT1.
+ * 
+ * <p>
+ * Roland-Boss addresses consist of four MIDI Data Bytes, each holding 7 bits;
+ * the index maps them onto a linear 28-bit address space (see {@link #toLinearAddress}),
+ * in which a descriptor occupies the half-open interval from its address to its address plus its length.
+ * 
+ * <p>
+ * The index is built (lazily) from the registered descriptors upon the first query after a registration,
+ * as an implicit balanced binary tree over the descriptors sorted by start address,
+ * augmented with the maximum end address in each subtree.
+ * A query for the descriptors overlapping a range of addresses then takes {@code O(log n + k)},
+ * with {@code n} the number of descriptors and {@code k} the number of descriptors reported.
+ * 
+ * <p>
+ * Since devices tend to send the same ranges over and over again,
+ * the (pre-sliced) result of each query through {@link #resolve} is cached
+ * in an open-addressing hash table keyed on (primitive) start address and length,
+ * so that repeated ranges are resolved without allocation.
+ * 
+ * <p>
+ * Finally, the index holds, for each descriptor, the value (bytes) last received from the device,
+ * so that parameters whose bytes did not change need not be converted and reported again,
+ * see {@link #updateValue}.
+ * 
+ * <p>
+ * The index is thread-safe.
+ * 
+ * @author Jan de Jongh {@literal <jfcmdejongh@gmail.com>}
+ * 
+ */
+final class AddressIndex_RolandBoss
+{
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // LINEAR ADDRESSES
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  /** Converts a (4-byte, 7-bit) Roland-Boss address into a linear address.
+   * 
+   * @param bytes  The array holding the address, non-{@code null}.
+   * @param offset The offset of the address in the array.
+   * 
+   * @return The linear address, between 0 and {@code 2^28 - 1} inclusive.
+   * 
+   * @throws IllegalArgumentException If the array is {@code null} or too small,
+   *                                    or if the address holds bytes that are not MIDI Data Bytes.
+   * 
+   */
+  public static int toLinearAddress (final byte[] bytes, final int offset)
+  {
+    if (bytes == null || offset < 0 || offset + 4 > bytes.length)
+      throw new IllegalArgumentException ();
+    if (((bytes[offset] | bytes[offset + 1] | bytes[offset + 2] | bytes[offset + 3]) & 0x80) != 0)
+      throw new IllegalArgumentException ();
+    return (bytes[offset] << 21) | (bytes[offset + 1] << 14) | (bytes[offset + 2] << 7) | bytes[offset + 3];
+  }
+
+  /** Converts a linear address (or length) into a (4-byte, 7-bit) Roland-Boss address (or size).
+   * 
+   * @param linearAddress The linear address, between 0 and {@code 2^28 - 1} inclusive.
+   * 
+   * @return The Roland-Boss address, a new array of four MIDI Data Bytes.
+   * 
+   * @throws IllegalArgumentException If the linear address is out of range.
+   * 
+   * @see #toLinearAddress
+   * 
+   */
+  public static byte[] fromLinearAddress (final int linearAddress)
+  {
+    if (linearAddress < 0 || linearAddress >= (1 << 28))
+      throw new IllegalArgumentException ();
+    return new byte[]
+    {
+      (byte) ((linearAddress >>> 21) & 0x7F),
+      (byte) ((linearAddress >>> 14) & 0x7F),
+      (byte) ((linearAddress >>>  7) & 0x7F),
+      (byte) (linearAddress & 0x7F)
+    };
+  }
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // REGISTRATION
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  private static final class Entry
+  {
+
+    private final ParameterDescriptor_RolandBoss descriptor;
+
+    private final int start;
+
+    private final int end;
+
+    /** The value last received from the device; only meaningful if {@link #valueKnown}.
+     * 
+     */
+    private final byte[] value;
+    
+    private boolean valueKnown = false;
+    
+    private Entry (final ParameterDescriptor_RolandBoss descriptor)
+    {
+      this.descriptor = descriptor;
+      this.start = AddressIndex_RolandBoss.toLinearAddress (descriptor.getAddressAsBytes (), 0);
+      this.end = this.start + descriptor.getLength ();
+      this.value = new byte[descriptor.getLength ()];
+    }
+
+  }
+
+  private final List<Entry> entries = new ArrayList<> ();
+
+  /** Adds a descriptor to the index.
+   * 
+   * @param descriptor The descriptor, non-{@code null}, of type
+   *                     {@link ParameterDescriptor_RolandBoss.ParameterType_RolandBoss#MidiSysExRolandBoss_RQ1_DT1}.
+   * 
+   * @throws IllegalArgumentException If the descriptor is {@code null}, of another type, or already in the index.
+   * 
+   */
+  public final synchronized void add (final ParameterDescriptor_RolandBoss descriptor)
+  {
+    if (descriptor == null
+      || descriptor.getParameterType_RolandBoss ()
+         != ParameterDescriptor_RolandBoss.ParameterType_RolandBoss.MidiSysExRolandBoss_RQ1_DT1)
+      throw new IllegalArgumentException ();
+    for (final Entry entry : this.entries)
+      if (entry.descriptor.equals (descriptor))
+        throw new IllegalArgumentException ();
+    this.entries.add (new Entry (descriptor));
+    this.sorted = null;
+    clearDispatchCache ();
+  }
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // INDEX
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  /** The entries sorted by start address, and, for equal start addresses, by descending length; {@code null} if stale.
+   * 
+   */
+  private Entry[] sorted = null;
+
+  private int[] starts;
+
+  private int[] ends;
+
+  /** For each node (the middle of a range of sorted entries), the maximum end address in its range.
+   * 
+   */
+  private int[] maxEnds;
+
+  private void build ()
+  {
+    final Entry[] newSorted = this.entries.toArray (new Entry[this.entries.size ()]);
+    // Stable; keeps registration order among equal intervals.
+    Arrays.sort (newSorted, Comparator.comparingInt ((final Entry e) -> e.start).thenComparingInt ((final Entry e) -> - e.end));
+    this.starts = new int[newSorted.length];
+    this.ends = new int[newSorted.length];
+    for (int i = 0; i < newSorted.length; i++)
+    {
+      this.starts[i] = newSorted[i].start;
+      this.ends[i] = newSorted[i].end;
+    }
+    this.maxEnds = new int[newSorted.length];
+    buildMaxEnds (0, newSorted.length - 1);
+    this.sorted = newSorted;
+  }
+
+  private int buildMaxEnds (final int lo, final int hi)
+  {
+    if (lo > hi)
+      return Integer.MIN_VALUE;
+    final int mid = (lo + hi) >>> 1;
+    this.maxEnds[mid] = Math.max (this.ends[mid], Math.max (buildMaxEnds (lo, mid - 1), buildMaxEnds (mid + 1, hi)));
+    return this.maxEnds[mid];
+  }
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // QUERIES
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  /** Finds the descriptors lying entirely within given range of (linear) addresses.
+   * 
+   * @param start  The (linear) start address of the range.
+   * @param length The length of the range.
+   * 
+   * @return The descriptors lying entirely within the range,
+   *         in ascending order of address, and, for equal addresses, in descending order of length.
+   * 
+   * @see #toLinearAddress
+   * 
+   */
+  public final synchronized List<ParameterDescriptor_RolandBoss> findContained (final int start, final int length)
+  {
+    final List<ParameterDescriptor_RolandBoss> found = new ArrayList<> ();
+    for (final Entry entry : findContainedEntries (start, length))
+      found.add (entry.descriptor);
+    return found;
+  }
+
+  private List<Entry> findContainedEntries (final int start, final int length)
+  {
+    final List<Entry> found = new ArrayList<> ();
+    if (length <= 0)
+      return found;
+    if (this.sorted == null)
+      build ();
+    findContained (0, this.sorted.length - 1, start, start + length, found);
+    return found;
+  }
+
+  private void findContained (final int lo, final int hi, final int start, final int end, final List<Entry> found)
+  {
+    if (lo > hi)
+      return;
+    final int mid = (lo + hi) >>> 1;
+    // No interval in this subtree ends after the start of the range.
+    if (this.maxEnds[mid] <= start)
+      return;
+    findContained (lo, mid - 1, start, end, found);
+    // This interval, and all intervals in the right subtree, start at or beyond the end of the range.
+    if (this.starts[mid] >= end)
+      return;
+    if (this.starts[mid] >= start && this.ends[mid] <= end)
+      found.add (this.sorted[mid]);
+    findContained (mid + 1, hi, start, end, found);
+  }
+
+  private void forgetOverlapping (final int lo, final int hi, final int start, final int end)
+  {
+    if (lo > hi)
+      return;
+    final int mid = (lo + hi) >>> 1;
+    if (this.maxEnds[mid] <= start)
+      return;
+    forgetOverlapping (lo, mid - 1, start, end);
+    if (this.starts[mid] >= end)
+      return;
+    if (this.ends[mid] > start)
+      this.sorted[mid].valueKnown = false;
+    forgetOverlapping (mid + 1, hi, start, end);
+  }
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // DISPATCH CACHE
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  /** The descriptors lying entirely within a range of addresses, with their slices of the range.
+   * 
+   * <p>
+   * Instances are shared, and their arrays must not be modified.
+   * 
+   * @see #resolve
+   * 
+   */
+  static final class Dispatch
+  {
+
+    /** The descriptors, in the order of {@link #findContained}.
+     * 
+     */
+    final ParameterDescriptor_RolandBoss[] descriptors;
+
+    /** The offset of each descriptor's slice from the start of the range.
+     * 
+     */
+    final int[] offsets;
+
+    /** The length of each descriptor's slice.
+     * 
+     */
+    final int[] lengths;
+
+    private final Entry[] entries;
+    
+    private Dispatch (final List<Entry> entries, final int start)
+    {
+      this.entries = entries.toArray (new Entry[entries.size ()]);
+      this.descriptors = new ParameterDescriptor_RolandBoss[this.entries.length];
+      this.offsets = new int[this.entries.length];
+      this.lengths = new int[this.entries.length];
+      for (int i = 0; i < this.entries.length; i++)
+      {
+        this.descriptors[i] = this.entries[i].descriptor;
+        this.offsets[i] = this.entries[i].start - start;
+        this.lengths[i] = this.descriptors[i].getLength ();
+      }
+    }
+
+  }
+
+  /** The maximum number of ranges held in the dispatch cache; once reached, the cache is cleared.
+   * 
+   */
+  private static final int DISPATCH_CACHE_MAXIMUM_SIZE = 1024;
+
+  /** The keys in the dispatch cache, {@code 0} for an empty slot; the length of a range is never zero.
+   * 
+   */
+  private final long[] dispatchKeys = new long[2 * AddressIndex_RolandBoss.DISPATCH_CACHE_MAXIMUM_SIZE];
+
+  private final Dispatch[] dispatchValues = new Dispatch[2 * AddressIndex_RolandBoss.DISPATCH_CACHE_MAXIMUM_SIZE];
+
+  private int dispatchCacheSize = 0;
+
+  private void clearDispatchCache ()
+  {
+    Arrays.fill (this.dispatchKeys, 0L);
+    Arrays.fill (this.dispatchValues, null);
+    this.dispatchCacheSize = 0;
+  }
+
+  /** Resolves a range of (linear) addresses into the descriptors lying entirely within it, with their slices.
+   * 
+   * <p>
+   * Apart from the form of the result, equivalent to {@link #findContained},
+   * but cached, and allocation-free for ranges resolved before.
+   * 
+   * @param start  The (linear) start address of the range.
+   * @param length The length of the range, strictly positive.
+   * 
+   * @return The dispatch for the range, non-{@code null}, but with empty arrays if no descriptor lies within the range.
+   * 
+   * @throws IllegalArgumentException If the start address is negative, or the length is zero or negative.
+   * 
+   */
+  public final synchronized Dispatch resolve (final int start, final int length)
+  {
+    if (start < 0 || length <= 0)
+      throw new IllegalArgumentException ();
+    final long key = (((long) start) << 32) | length;
+    final int mask = this.dispatchKeys.length - 1;
+    int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+    while (this.dispatchKeys[slot] != 0L)
+    {
+      if (this.dispatchKeys[slot] == key)
+        return this.dispatchValues[slot];
+      slot = (slot + 1) & mask;
+    }
+    final Dispatch dispatch = new Dispatch (findContainedEntries (start, length), start);
+    if (this.dispatchCacheSize == AddressIndex_RolandBoss.DISPATCH_CACHE_MAXIMUM_SIZE)
+    {
+      clearDispatchCache ();
+      slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+    }
+    this.dispatchKeys[slot] = key;
+    this.dispatchValues[slot] = dispatch;
+    this.dispatchCacheSize++;
+    return dispatch;
+  }
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // DEVICE VALUES
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  /** Records the value of a descriptor in a dispatch as received from the device, and reports whether it changed.
+   * 
+   * <p>
+   * Comparison and recording take place in situ, without allocation.
+   * 
+   * @param dispatch The dispatch, non-{@code null}, obtained from {@link #resolve} on this index.
+   * @param i        The index of the descriptor in the dispatch.
+   * @param bytes    The array holding the received value, non-{@code null}.
+   * @param offset   The offset of the value in the array.
+   * 
+   * @return Whether the value differs from the value last received, or no value was known.
+   * 
+   * @throws IllegalArgumentException If the dispatch or the array is {@code null},
+   *                                    the index is out of range, or the array is too small.
+   * 
+   * @see #forgetValues()
+   * @see #forgetValues(int, int)
+   * 
+   */
+  public final synchronized boolean updateValue (final Dispatch dispatch, final int i, final byte[] bytes, final int offset)
+  {
+    if (dispatch == null || i < 0 || i >= dispatch.entries.length || bytes == null)
+      throw new IllegalArgumentException ();
+    final Entry entry = dispatch.entries[i];
+    if (offset < 0 || offset + entry.value.length > bytes.length)
+      throw new IllegalArgumentException ();
+    boolean changed = ! entry.valueKnown;
+    for (int j = 0; j < entry.value.length; j++)
+      if (entry.value[j] != bytes[offset + j])
+      {
+        entry.value[j] = bytes[offset + j];
+        changed = true;
+      }
+    entry.valueKnown = true;
+    return changed;
+  }
+  
+  /** Forgets the value received from the device for a descriptor in a dispatch.
+   * 
+   * <p>
+   * Typically invoked if processing a value recorded through {@link #updateValue} failed,
+   * so that the value is processed again the next time it is received.
+   * 
+   * @param dispatch The dispatch, non-{@code null}, obtained from {@link #resolve} on this index.
+   * @param i        The index of the descriptor in the dispatch.
+   * 
+   * @throws IllegalArgumentException If the dispatch is {@code null} or the index is out of range.
+   * 
+   * @see #updateValue
+   * 
+   */
+  public final synchronized void forgetValue (final Dispatch dispatch, final int i)
+  {
+    if (dispatch == null || i < 0 || i >= dispatch.entries.length)
+      throw new IllegalArgumentException ();
+    dispatch.entries[i].valueKnown = false;
+  }
+  
+  /** Forgets the values received from the device for all descriptors overlapping given range of (linear) addresses.
+   * 
+   * @param start  The (linear) start address of the range.
+   * @param length The length of the range.
+   * 
+   * @see #updateValue
+   * 
+   */
+  public final synchronized void forgetValues (final int start, final int length)
+  {
+    if (length <= 0)
+      return;
+    if (this.sorted == null)
+      build ();
+    forgetOverlapping (0, this.sorted.length - 1, start, start + length);
+  }
+  
+  /** Forgets the values received from the device for all descriptors.
+   * 
+   * @see #updateValue
+   * 
+   */
+  public final synchronized void forgetValues ()
+  {
+    for (final Entry entry : this.entries)
+      entry.valueKnown = false;
+  }
+  
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // END OF FILE
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+}
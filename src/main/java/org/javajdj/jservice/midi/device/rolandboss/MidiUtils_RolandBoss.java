@@ -16,6 +16,7 @@
  */
 package org.javajdj.jservice.midi.device.rolandboss;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Map;
 import org.json.simple.JSONArray;
@@ -48,43 +49,186 @@ public class MidiUtils_RolandBoss
     (byte) 0xF7
   };
     
+  /** The size (in bytes) of an RQ1 message.
+   * 
+   */
+  public final static int MIDI_DATA_REQ_RQ1_MESSAGE_SIZE = MidiUtils_RolandBoss.MIDI_DATA_REQ_RQ1_TEMPLATE.length;
+  
   public static byte[] createMidiSysExMessage_RolandBoss_RQ1 (final byte[] address, final byte[] size)
   {
-    if (address == null || address.length != 4 || size == null || size.length != 4) /* XXX 4 FOR NOW!! */
-      throw new IllegalArgumentException ();
-    final byte[] rawMidiMessage = MIDI_DATA_REQ_RQ1_TEMPLATE.clone ();
-    System.arraycopy (address, 0, rawMidiMessage, 8, 4);
-    System.arraycopy (size, 0, rawMidiMessage, 12, 4);
-    rawMidiMessage[rawMidiMessage.length - 2] = MidiUtils_RolandBoss.rolandChecksum (rawMidiMessage);
+    final byte[] rawMidiMessage = new byte[MidiUtils_RolandBoss.MIDI_DATA_REQ_RQ1_MESSAGE_SIZE];
+    MidiUtils_RolandBoss.writeMidiSysExMessage_RolandBoss_RQ1 (address, size, rawMidiMessage, 0);
     return rawMidiMessage;
   }
 
+  /** Formats an RQ1 message into a caller-supplied array, without allocation.
+   * 
+   * @param address   The address, non-{@code null} and of length 4.
+   * @param size      The size, non-{@code null} and of length 4.
+   * @param dst       The destination array, non-{@code null}.
+   * @param dstOffset The offset in the destination array at which to write the message.
+   * 
+   * @return The number of bytes written, i.e., {@link #MIDI_DATA_REQ_RQ1_MESSAGE_SIZE}.
+   * 
+   * @throws IllegalArgumentException If any of the arguments is {@code null} or of illegal length,
+   *                                    or if the destination array is too small.
+   * 
+   */
+  public static int writeMidiSysExMessage_RolandBoss_RQ1
+  (final byte[] address, final byte[] size, final byte[] dst, final int dstOffset)
+  {
+    if (address == null || address.length != 4 || size == null || size.length != 4) /* XXX 4 FOR NOW!! */
+      throw new IllegalArgumentException ();
+    if (dst == null || dstOffset < 0 || dstOffset + MidiUtils_RolandBoss.MIDI_DATA_REQ_RQ1_MESSAGE_SIZE > dst.length)
+      throw new IllegalArgumentException ();
+    System.arraycopy (MidiUtils_RolandBoss.MIDI_DATA_REQ_RQ1_TEMPLATE, 0,
+                      dst, dstOffset,
+                      MidiUtils_RolandBoss.MIDI_DATA_REQ_RQ1_MESSAGE_SIZE);
+    System.arraycopy (address, 0, dst, dstOffset + 8, 4);
+    System.arraycopy (size, 0, dst, dstOffset + 12, 4);
+    dst[dstOffset + MidiUtils_RolandBoss.MIDI_DATA_REQ_RQ1_MESSAGE_SIZE - 2] =
+      MidiUtils_RolandBoss.rolandChecksum (dst, dstOffset + 8, 8);
+    return MidiUtils_RolandBoss.MIDI_DATA_REQ_RQ1_MESSAGE_SIZE;
+  }
+  
+  /** Formats an RQ1 message into a caller-supplied buffer, without allocation.
+   * 
+   * <p>
+   * The message is written starting at the buffer's position, which is advanced accordingly.
+   * 
+   * @param address The address, non-{@code null} and of length 4.
+   * @param size    The size, non-{@code null} and of length 4.
+   * @param dst     The destination buffer, non-{@code null}, not read-only,
+   *                  and with at least {@link #MIDI_DATA_REQ_RQ1_MESSAGE_SIZE} bytes remaining.
+   * 
+   * @throws IllegalArgumentException If any of the arguments is illegal.
+   * 
+   */
+  public static void writeMidiSysExMessage_RolandBoss_RQ1 (final byte[] address, final byte[] size, final ByteBuffer dst)
+  {
+    if (address == null || address.length != 4 || size == null || size.length != 4)
+      throw new IllegalArgumentException ();
+    if (dst == null || dst.isReadOnly () || dst.remaining () < MidiUtils_RolandBoss.MIDI_DATA_REQ_RQ1_MESSAGE_SIZE)
+      throw new IllegalArgumentException ();
+    dst.put (MidiUtils_RolandBoss.MIDI_DATA_REQ_RQ1_TEMPLATE, 0, 8)
+       .put (address)
+       .put (size)
+       .put (MidiUtils_RolandBoss.rolandChecksum (address, size))
+       .put ((byte) 0xF7); // EOX
+  }
+  
+  private final static byte[] MIDI_DATA_SET_DT1_PREFIX = new byte[]
+  {
+    (byte) 0xF0, // System Exclusive
+    (byte) 0x41, // Roland
+    (byte) 0x10, // Device -> Is this relevant, and is 0x10 always a proper value (should be argument)?
+    (byte) 0x00, (byte) 0x00, (byte) 0x00, (byte) 0x01, // Model  -> I.D.
+    (byte) 0x12  // command ID (DT1)
+  };
+  
+  /** Returns the size (in bytes) of a DT1 message.
+   * 
+   * @param valueLength The length of the value.
+   * 
+   * @return The size (in bytes) of a DT1 message holding a value of given length.
+   * 
+   */
+  public static int getMidiSysExMessageSize_RolandBoss_DT1 (final int valueLength)
+  {
+    return 14 + valueLength;
+  }
+  
   public static byte[] createMidiSysExMessage_RolandBoss_DT1 (final byte[] address, final byte[] value)
   {
     if (address == null || address.length != 4 || value == null)
       throw new IllegalArgumentException ();
-    final byte[] rawMidiMessage = new byte[14 + value.length];
-    rawMidiMessage[0] = (byte) 0xF0; // System Exclusive
-    rawMidiMessage[1] = (byte) 0x41; // Roland
-    rawMidiMessage[2] = (byte) 0x10; // Device -> Is this relevant, and is 0x10 always a proper value (should be argument)?
-    rawMidiMessage[3] = (byte) 0x00; // Model  -> I.D.
-    rawMidiMessage[4] = (byte) 0x00;
-    rawMidiMessage[5] = (byte) 0x00;
-    rawMidiMessage[6] = (byte) 0x01;
-    rawMidiMessage[7] = (byte) 0x12; // command ID (DT1)
-    System.arraycopy (address, 0, rawMidiMessage, 8, 4);
-    System.arraycopy (value, 0, rawMidiMessage, 12, value.length);
-    rawMidiMessage[rawMidiMessage.length - 2] = MidiUtils_RolandBoss.rolandChecksum (address, value);
-    rawMidiMessage[rawMidiMessage.length - 1] = (byte) 0xF7; // EOX
+    final byte[] rawMidiMessage = new byte[MidiUtils_RolandBoss.getMidiSysExMessageSize_RolandBoss_DT1 (value.length)];
+    MidiUtils_RolandBoss.writeMidiSysExMessage_RolandBoss_DT1 (address, value, rawMidiMessage, 0);
     return rawMidiMessage;
   }
   
+  /** Formats a DT1 message into a caller-supplied array, without allocation.
+   * 
+   * @param address   The address, non-{@code null} and of length 4.
+   * @param value     The value, non-{@code null}.
+   * @param dst       The destination array, non-{@code null}.
+   * @param dstOffset The offset in the destination array at which to write the message.
+   * 
+   * @return The number of bytes written.
+   * 
+   * @throws IllegalArgumentException If any of the arguments is {@code null} or of illegal length,
+   *                                    or if the destination array is too small.
+   * 
+   * @see #getMidiSysExMessageSize_RolandBoss_DT1
+   * 
+   */
+  public static int writeMidiSysExMessage_RolandBoss_DT1
+  (final byte[] address, final byte[] value, final byte[] dst, final int dstOffset)
+  {
+    if (address == null || address.length != 4 || value == null)
+      throw new IllegalArgumentException ();
+    final int messageSize = MidiUtils_RolandBoss.getMidiSysExMessageSize_RolandBoss_DT1 (value.length);
+    if (dst == null || dstOffset < 0 || dstOffset + messageSize > dst.length)
+      throw new IllegalArgumentException ();
+    System.arraycopy (MidiUtils_RolandBoss.MIDI_DATA_SET_DT1_PREFIX, 0,
+                      dst, dstOffset,
+                      MidiUtils_RolandBoss.MIDI_DATA_SET_DT1_PREFIX.length);
+    System.arraycopy (address, 0, dst, dstOffset + 8, 4);
+    System.arraycopy (value, 0, dst, dstOffset + 12, value.length);
+    dst[dstOffset + messageSize - 2] = MidiUtils_RolandBoss.rolandChecksum (address, value);
+    dst[dstOffset + messageSize - 1] = (byte) 0xF7; // EOX
+    return messageSize;
+  }
+  
+  /** Formats a DT1 message into a caller-supplied buffer, without allocation.
+   * 
+   * <p>
+   * The message is written starting at the buffer's position, which is advanced accordingly.
+   * 
+   * @param address The address, non-{@code null} and of length 4.
+   * @param value   The value, non-{@code null}.
+   * @param dst     The destination buffer, non-{@code null}, not read-only, and with sufficient bytes remaining.
+   * 
+   * @throws IllegalArgumentException If any of the arguments is illegal.
+   * 
+   * @see #getMidiSysExMessageSize_RolandBoss_DT1
+   * 
+   */
+  public static void writeMidiSysExMessage_RolandBoss_DT1 (final byte[] address, final byte[] value, final ByteBuffer dst)
+  {
+    if (address == null || address.length != 4 || value == null)
+      throw new IllegalArgumentException ();
+    if (dst == null
+      || dst.isReadOnly ()
+      || dst.remaining () < MidiUtils_RolandBoss.getMidiSysExMessageSize_RolandBoss_DT1 (value.length))
+      throw new IllegalArgumentException ();
+    dst.put (MidiUtils_RolandBoss.MIDI_DATA_SET_DT1_PREFIX)
+       .put (address)
+       .put (value)
+       .put (MidiUtils_RolandBoss.rolandChecksum (address, value))
+       .put ((byte) 0xF7); // EOX
+  }
+  
   public final static byte rolandChecksum (final byte[] rawMessage)
+  {
+    return MidiUtils_RolandBoss.rolandChecksum (rawMessage, 8, 8);
+  }
+  
+  /** Computes the Roland checksum over a range of bytes (typically, the address and data or size bytes of a message).
+   * 
+   * @param bytes  The bytes, non-{@code null}.
+   * @param offset The offset of the range.
+   * @param length The length of the range.
+   * 
+   * @return The Roland checksum.
+   * 
+   */
+  public final static byte rolandChecksum (final byte[] bytes, final int offset, final int length)
   {
     // Add all address and data (size) bytes.
     int sum = 0;
-    for (int i = 8; i < 16; i++)
-      sum += rawMessage[i];
+    for (int i = offset; i < offset + length; i++)
+      sum += bytes[i];
     // LOG.log (Level.INFO, "Sum = {0}.", sum);
     // Take remainder from division by 128.
     final int remainder = sum % 128;
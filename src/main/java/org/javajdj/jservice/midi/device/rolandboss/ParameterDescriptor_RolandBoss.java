@@ -78,6 +78,7 @@ public class ParameterDescriptor_RolandBoss<E>
       throw new IllegalArgumentException ();
     this.parameterName = parameterName;
     this.parameterValueClass = parameterValueClass;
+    this.parameterValueEnumConstants = (parameterValueClass != null ? parameterValueClass.getEnumConstants () : null);
     this.parameterConversion_RolandBoss =
       (parameterConversion_RolandBoss != null ? parameterConversion_RolandBoss : ParameterConversion_RolandBoss.NONE);
     switch (this.parameterType_RolandBoss)
@@ -257,6 +258,14 @@ public class ParameterDescriptor_RolandBoss<E>
     return this.parameterValueClass;
   }
   
+  /** The enum constants of the parameter value class, {@code null} if it is not an enum.
+   * 
+   * <p>
+   * Cached, since {@link Class#getEnumConstants} returns a fresh copy upon each invocation.
+   * 
+   */
+  private final E[] parameterValueEnumConstants;
+  
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
   //
   // TYPE CONVERSION
@@ -295,56 +304,79 @@ public class ParameterDescriptor_RolandBoss<E>
   
   public final Object convertFromDevice (final byte[] value)
   {
+    if (value == null)
+      return null;
+    else if (this.parameterConversion_RolandBoss == ParameterConversion_RolandBoss.NONE)
+      return value;
+    else
+      return convertFromDevice (value, 0, value.length);
+  }
+
+  /** Converts a value from a range in a byte array as read from the device, without copying the range if possible.
+   * 
+   * <p>
+   * Identical to {@link #convertFromDevice(byte[])} applied to a copy of the range,
+   * except that only {@link ParameterConversion_RolandBoss#NONE} and {@link ParameterConversion_RolandBoss#CUSTOM}
+   * actually copy the range.
+   * In particular, this method may be applied directly to the payload of a received MIDI System Exclusive message.
+   * 
+   * @param bytes  The array holding the value, non-{@code null}.
+   * @param offset The offset of the value in the array.
+   * @param length The length of the value.
+   * 
+   * @return The converted value.
+   * 
+   * @throws IllegalArgumentException If the array is {@code null}, the range is out of bounds,
+   *                                    or the range does not hold a legal value.
+   * 
+   */
+  public final Object convertFromDevice (final byte[] bytes, final int offset, final int length)
+  {
+    if (bytes == null || offset < 0 || length < 0 || offset + length > bytes.length)
+      throw new IllegalArgumentException ();
     switch (this.parameterConversion_RolandBoss)
     {
       case NONE:
-        return value;
+        return Arrays.copyOfRange (bytes, offset, offset + length);
       case BOOLEAN_IN_BYTE:
       {
-        if (value == null)
-          return null;
-        else if (value.length != 1)
+        if (length != 1)
           throw new IllegalArgumentException ();
-        else if (value[0] != 0 && value[0] != 1)
+        else if (bytes[offset] != 0 && bytes[offset] != 1)
           throw new IllegalArgumentException ();
         else
-          return (value[0] == 1);
+          return (bytes[offset] == 1);
       }
       case ENUM_IN_BYTE:
       {
-        if (value == null)
-          return null;
-        else if (value.length != 1)
+        if (length != 1)
           throw new IllegalArgumentException ();
-        else if (value[0] < 0 || value[0] >= getParameterValueClass ().getEnumConstants ().length)
+        else if (bytes[offset] < 0 || bytes[offset] >= this.parameterValueEnumConstants.length)
           throw new IllegalArgumentException ();
         else
-          return (getParameterValueClass ().getEnumConstants ()[value[0]]);
+          return this.parameterValueEnumConstants[bytes[offset]];
       }
       case INT_IN_BYTE:
       {
-        if (value == null)
-          return null;
-        else if (value.length != 1)
+        if (length != 1)
           throw new IllegalArgumentException ();
-        else if (value[0] < 0)
+        else if (bytes[offset] < 0)
           throw new IllegalArgumentException ();
         else
-          return ((int) value[0]);
+          return ((int) bytes[offset]);
       }
       case FIXED_US_ASCII_STRING_IN_BYTES:
       {
-        if (value == null)
-          return null;
-        else if (value.length != getLength ())
+        if (length != getLength ())
           throw new IllegalArgumentException ();
         try
         {
-          return new String (value, "US-ASCII");          
+          return new String (bytes, offset, length, "US-ASCII");
         }
         catch (UnsupportedEncodingException uee)
         {
-          LOG.log (Level.WARNING, "Encoding Error for US-ASCII: {0}.", HexUtils.bytesToHex (value));
+          LOG.log (Level.WARNING, "Encoding Error for US-ASCII: {0}.",
+            HexUtils.bytesToHex (Arrays.copyOfRange (bytes, offset, offset + length)));
           return null;
         }        
       }
@@ -352,17 +384,12 @@ public class ParameterDescriptor_RolandBoss<E>
       {
         if (this.customValueConverter == null)
           throw new RuntimeException ();
-        if (value == null)
-          return null;
-        else if (value.length != getLength ())
+        if (length != getLength ())
           throw new IllegalArgumentException ();
-        else
-        {
-          final E e = this.customValueConverter.fromDevice (value);
-          if (e == null)
-            throw new RuntimeException ();
-          return e;
-        }
+        final E e = this.customValueConverter.fromDevice (Arrays.copyOfRange (bytes, offset, offset + length));
+        if (e == null)
+          throw new RuntimeException ();
+        return e;
       }
       default:
         throw new RuntimeException ();
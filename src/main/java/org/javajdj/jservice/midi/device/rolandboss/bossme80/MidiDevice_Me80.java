@@ -114,12 +114,6 @@ public final class MidiDevice_Me80
     
   }
   
-  private final static String[] CURRENT_PATCH_NO_RAW_SUB_KEYS = new String[]
-  {
-    CURRENT_PATCH_NO_NAME,
-    CURRENT_PATCH_SLOT_NAME
-  };
-  
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
   //
   // SYSTEM PARAMETERS
@@ -137,20 +131,6 @@ public final class MidiDevice_Me80
   public final static String SY_USB_MIDI_CH_NAME        = "system.usb_midi_ch";
   public final static String SY_TUNER_PITCH_NAME        = "system.tuner_pitch";
 
-  private final static String[] SYSTEM_SUB_KEYS = new String[]
-  {
-    SY_KNOB_MODE_NAME,
-    SY_AUTO_OFF_SWITCH_NAME,
-    SY_TUNER_MUTE_NAME,
-    SY_PATCH_CHANGE_MODE_NAME,
-    SY_MANUAL_CHANGE_MODE_NAME,
-    SY_USB_OUTPUT_LEVEL_NAME,
-    SY_USB_LOOPBACK_NAME,
-    SY_USB_DRY_REC_NAME,
-    SY_USB_MIDI_CH_NAME,
-    SY_TUNER_PITCH_NAME
-  };
-  
   public enum KnobMode
   {
     IMMEDIATE,
@@ -255,77 +235,6 @@ public final class MidiDevice_Me80
   //
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
   
-  private final static String[] TEMPORARY_PATCH_SUB_KEYS = new String[]
-  {
-    
-    // NAME
-    MidiDevice_Me80.TP_NAME_NAME,
-    
-    // COMP
-    MidiDevice_Me80.TP_COMP_SW_NAME,
-    MidiDevice_Me80.TP_COMP_TYPE_NAME,
-    MidiDevice_Me80.TP_COMP_1_NAME,
-    MidiDevice_Me80.TP_COMP_2_NAME,
-    MidiDevice_Me80.TP_COMP_3_NAME,
-    
-    // OD/DS
-    MidiDevice_Me80.TP_OD_DS_SW_NAME,
-    MidiDevice_Me80.TP_OD_DS_TYPE_NAME,
-    MidiDevice_Me80.TP_OD_DS_1_NAME,
-    MidiDevice_Me80.TP_OD_DS_2_NAME,
-    MidiDevice_Me80.TP_OD_DS_3_NAME,
-    
-    // AMP
-    MidiDevice_Me80.TP_AMP_SW_NAME,
-    MidiDevice_Me80.TP_AMP_TYPE_NAME,
-    MidiDevice_Me80.TP_AMP_1_NAME,
-    MidiDevice_Me80.TP_AMP_2_NAME,
-    MidiDevice_Me80.TP_AMP_3_NAME,
-    MidiDevice_Me80.TP_AMP_4_NAME,
-    MidiDevice_Me80.TP_AMP_5_NAME,
-   
-    // MOD
-    MidiDevice_Me80.TP_MOD_SW_NAME,
-    MidiDevice_Me80.TP_MOD_TYPE_NAME,
-    MidiDevice_Me80.TP_MOD_1_NAME,
-    MidiDevice_Me80.TP_MOD_2_NAME,
-    MidiDevice_Me80.TP_MOD_3_NAME,
-    
-    // EQ/FX2
-    MidiDevice_Me80.TP_EQ_FX2_SW_NAME,
-    MidiDevice_Me80.TP_EQ_FX2_TYPE_NAME,
-    MidiDevice_Me80.TP_EQ_FX2_1_NAME,
-    MidiDevice_Me80.TP_EQ_FX2_2_NAME,
-    MidiDevice_Me80.TP_EQ_FX2_3_NAME,
-    MidiDevice_Me80.TP_EQ_FX2_4_NAME,
-    
-    // DELAY
-    MidiDevice_Me80.TP_DELAY_SW_NAME,
-    MidiDevice_Me80.TP_DELAY_TYPE_NAME,
-    MidiDevice_Me80.TP_DELAY_1_NAME,
-    MidiDevice_Me80.TP_DELAY_2_NAME,
-    MidiDevice_Me80.TP_DELAY_3_NAME,
-    
-    // REVERB
-    MidiDevice_Me80.TP_REVERB_SW_NAME,
-    MidiDevice_Me80.TP_REVERB_TYPE_NAME,
-    MidiDevice_Me80.TP_REVERB_REV_NAME,
-    
-    // CTL
-    MidiDevice_Me80.TP_CTL_TARGET_NAME,
-    MidiDevice_Me80.TP_CTL_KNOB_VALUE_NAME,
-    MidiDevice_Me80.TP_CTL_MODE_NAME,
-    MidiDevice_Me80.TP_CTL_TARGET_CUSTOM_NAME,
-    
-    // PEDAL/FX
-    MidiDevice_Me80.TP_PEDAL_FX_SW_NAME,    
-    MidiDevice_Me80.TP_PEDAL_FX_TYPE_NAME,
-    
-    // NS
-    MidiDevice_Me80.TP_NS_THRESH_NAME
-    
-  };
-  
   private void registerParameters_Me80_TemporaryPatch ()
   {
     registerParameters_Me80_TemporaryPatch_Name ();
@@ -1583,70 +1492,6 @@ public final class MidiDevice_Me80
     
   }
   
-  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-  //
-  // UPDATE FROM [MIDI] DEVICE
-  // FROM SUPER CLASS
-  //
-  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-
-  @Override
-  protected void updatePatchNoFromDevice (final byte[] value)
-  {
-    // LOG.log (Level.INFO, "New patch no: {0}.", HexUtils.bytesToHex (value));
-    synchronized (this)
-    {
-      super.updatePatchNoFromDevice (value);
-      for (final String key : CURRENT_PATCH_NO_RAW_SUB_KEYS)
-      {
-        final ParameterDescriptor_RolandBoss pd = getParameterDescriptor (key);
-        final ParameterDescriptor_RolandBoss pd_parent = getParameterDescriptor (pd.getParentKey ());
-        final byte[] newValue = new byte[pd.getLength ()];
-        final int offset = pd.getAddress () - pd_parent.getAddress ();
-        System.arraycopy (value, offset, newValue, 0, pd.getLength ());
-        onParameterReadFromDevice (key, newValue);
-      }
-    }
-  }
-
-  @Override
-  protected void updateSystemSettingsFromDevice (final byte[] value)
-  {
-    // LOG.log (Level.INFO, "New system settings: {0}.", HexUtils.bytesToHex (value));
-    synchronized (this)
-    {
-      super.updateSystemSettingsFromDevice (value);
-      for (final String key : SYSTEM_SUB_KEYS)
-      {
-        final ParameterDescriptor_RolandBoss pd = getParameterDescriptor (key);
-        final ParameterDescriptor_RolandBoss pd_parent = getParameterDescriptor (pd.getParentKey ());
-        final byte[] newValue = new byte[pd.getLength ()];
-        final int offset = pd.getAddress () - pd_parent.getAddress ();
-        System.arraycopy (value, offset, newValue, 0, pd.getLength ());
-        onParameterReadFromDevice (key, newValue);
-      }
-    }
-  }
-
-  @Override
-  protected void updateTemporaryPatchFromDevice (final byte[] value)
-  {
-    // LOG.log (Level.INFO, "New temporary patch: {0}.", HexUtils.bytesToHex (value));
-    synchronized (this)
-    {
-      super.updateTemporaryPatchFromDevice (value);
-      for (final String key : TEMPORARY_PATCH_SUB_KEYS)
-      {
-        final ParameterDescriptor_RolandBoss pd = getParameterDescriptor (key);
-        final ParameterDescriptor_RolandBoss pd_parent = getParameterDescriptor (pd.getParentKey ());
-        final byte[] newValue = new byte[pd.getLength ()];
-        final int offset = pd.getAddress () - pd_parent.getAddress ();
-        System.arraycopy (value, offset, newValue, 0, pd.getLength ());
-        onParameterReadFromDevice (key, newValue);
-      }
-    }
-  }
-
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
   //
   // WRITE PATCH TO DEVICE
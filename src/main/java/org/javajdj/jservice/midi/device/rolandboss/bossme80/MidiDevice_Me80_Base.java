@@ -16,16 +16,17 @@
  */
 package org.javajdj.jservice.midi.device.rolandboss.bossme80;
 
-import java.time.Duration;
-import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.javajdj.jservice.midi.device.MidiDeviceListener;
+import org.javajdj.jservice.midi.device.support.MidiDeviceScheduler;
 import org.javajdj.jservice.midi.device.rolandboss.AbstractMidiDevice_RolandBoss;
 import org.javajdj.jservice.midi.device.rolandboss.ParameterDescriptor_RolandBoss;
 import org.javajdj.jservice.midi.MidiService;
@@ -43,6 +44,8 @@ import org.javajdj.jservice.support.Service_FromMix;
  * through RQ1 messages.
  * Sub-classes may request, within reason, the periodic RQ1 request for
  * additional parameters, see {@link #addRQ1Request}.
+ * Requests for parameters at adjacent or overlapping addresses are merged
+ * into a single RQ1 message, see {@link #planRQ1Ranges}.
  * 
  * <p>
  * The three parameters are subdivided into more
@@ -51,11 +54,11 @@ import org.javajdj.jservice.support.Service_FromMix;
  * 
  * <p>
  * In addition to parameter registration,
- * this class hands two {@link Runnable}s to the
- * super {@link Service_FromMix},
- * one that acts as a watchdog for the device (monitoring reception of ID SysEx messages),
- * and one periodically requesting the id and the values of registered parameters
- * from the device.
+ * this class registers a status listener on itself (a {@link Service_FromMix})
+ * that schedules, while active, on the shared {@link MidiDeviceScheduler},
+ * a task periodically requesting the id and the values of registered parameters
+ * from the device (sending each request as soon as the device has answered the previous ones),
+ * and a watchdog timeout for the device (re-armed upon reception of ID SysEx messages).
  * 
  * @author Jan de Jongh {@literal <jfcmdejongh@gmail.com>}
  * 
@@ -82,8 +85,7 @@ public class MidiDevice_Me80_Base
   {
     super (midiService);
     registerParameters_Me80_Base ();
-    addRunnable (this.me80MainRequestLoop);
-    addRunnable (this.me80Watchdog);
+    addStatusListener (this.me80ScheduledTasks);
   }
 
   public final static String CURRENT_PATCH_NO_RAW_NAME = "current_patch_no_raw"; // Likely renamed and re-typed in sub-class...
@@ -116,6 +118,32 @@ public class MidiDevice_Me80_Base
     
   }
   
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // ME80 SCHEDULED TASKS
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  
+  private final MidiDeviceScheduler.ScheduledTasks me80ScheduledTasks =
+    new MidiDeviceScheduler.ScheduledTasks ("BOSS ME-80")
+  {
+    
+    @Override
+    protected final void onStart ()
+    {
+      MidiDevice_Me80_Base.this.startMainRequestLoop ();
+      MidiDevice_Me80_Base.this.startWatchdog ();
+    }
+
+    @Override
+    protected final void onStop ()
+    {
+      MidiDevice_Me80_Base.this.stopMainRequestLoop ();
+      MidiDevice_Me80_Base.this.stopWatchdog ();
+    }
+    
+  };
+  
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
   //
   // ME80 MAIN REQUEST LOOP
@@ -137,6 +165,10 @@ public class MidiDevice_Me80_Base
    * Adding (or removing) parameters through this method is only allowed if this device
    * is in {@link Status#STOPPED} state.
    * 
+   * <p>
+   * The request need not be sent as a separate RQ1 message;
+   * upon start, the periodic requests are merged where possible into as few RQ1 messages as possible.
+   * 
    * @param parameterName The parameter, must be in the {@link #keySet} of this device.
    * 
    * @throws IllegalArgumentException If the parameter name is {@code null} or
@@ -153,34 +185,259 @@ public class MidiDevice_Me80_Base
     this.RQ1_REQUESTS.add (parameterName);
   }
   
-  private final Runnable me80MainRequestLoop = () ->
+  /** The maximum number of RQ1 requests awaiting their reply at any time.
+   * 
+   */
+  private final int RQ1_MAXIMUM_WINDOW = 4;
+  
+  /** The timeout (in milliseconds) for an RQ1 request before any round-trip time has been measured.
+   * 
+   */
+  private final long RQ1_INITIAL_TIMEOUT_MS = 100L;
+  
+  /** The minimum timeout (in milliseconds) for an RQ1 request.
+   * 
+   */
+  private final long RQ1_MINIMUM_TIMEOUT_MS = 20L;
+  
+  /** The maximum timeout (in milliseconds) for an RQ1 request.
+   * 
+   */
+  private final long RQ1_MAXIMUM_TIMEOUT_MS = 250L;
+  
+  private final Object rq1Lock = new Object ();
+  
+  /** The planned RQ1 ranges, each holding a linear start address and a length.
+   * 
+   * <p>
+   * Set upon start of the main request loop from the registered requests.
+   * 
+   * @see #planRQ1Ranges
+   * 
+   */
+  private int[][] rq1Plan = new int[0][];
+  
+  /** The (smoothed) round-trip time in nanoseconds for each planned range, negative if not (yet) measured.
+   * 
+   */
+  private long[] rq1RttNanos = new long[0];
+  
+  /** Whether the request for each planned range awaits its reply in the current cycle.
+   * 
+   */
+  private boolean[] rq1InFlight = new boolean[0];
+  
+  private long[] rq1SentNanos = new long[0];
+  
+  private long rq1Cycle = 0L;
+  
+  private long rq1CycleStartNanos = System.nanoTime ();
+  
+  private boolean rq1CycleDone = true;
+  
+  private int rq1Next = 0;
+  
+  private int rq1NumberInFlight = 0;
+  
+  private int rq1Window = 1;
+  
+  private long rq1SmoothedRttNanos = -1L;
+  
+  private long rq1RttVariationNanos = 0L;
+  
+  private long rq1MinimumRttNanos = Long.MAX_VALUE;
+  
+  private synchronized void startMainRequestLoop ()
   {
     LOG.log (Level.INFO, "Starting Main Request Loop on BOSS ME-80.");
-    if (MidiDevice_Me80_Base.this.RQ1_REQUESTS.size () > 12)
+    forgetParameterValuesFromDevice ();
+    final int[][] plan = planRQ1Ranges (this.RQ1_REQUESTS);
+    LOG.log (Level.INFO, "Merged {0} RQ1 requests into {1} RQ1 messages.",
+      new Object[]{this.RQ1_REQUESTS.size (), plan.length});
+    synchronized (this.rq1Lock)
     {
-      LOG.log (Level.SEVERE, "Too many aggregated RQ1 requests (at most 12 are supported); exiting!");
-      throw new RuntimeException ();
+      this.rq1Plan = plan;
+      this.rq1RttNanos = new long[plan.length];
+      Arrays.fill (this.rq1RttNanos, -1L);
+      this.rq1InFlight = new boolean[plan.length];
+      this.rq1SentNanos = new long[plan.length];
+      this.rq1CycleDone = true;
+      this.rq1Window = 1;
+      this.rq1SmoothedRttNanos = -1L;
+      this.rq1RttVariationNanos = 0L;
+      this.rq1MinimumRttNanos = Long.MAX_VALUE;
     }
-    try
+    this.me80ScheduledTasks.schedule (this::startRequestCycle, 0L, TimeUnit.MILLISECONDS);
+  }
+  
+  /** Starts a cycle in the main request loop.
+   * 
+   * <p>
+   * A cycle sends the ID request, followed by the planned (merged) RQ1 requests.
+   * The RQ1 requests are flow controlled:
+   * only an (adaptive) window of requests awaits its reply at any time,
+   * and the next request is sent as soon as a reply (DT1) arrives,
+   * or a request times out.
+   * Once all requests have been answered (or have timed out),
+   * the next cycle starts after the remainder of the loop period.
+   * 
+   * @see #onDT1Received
+   * 
+   */
+  private void startRequestCycle ()
+  {
+    sendMidiIdReq ();
+    synchronized (this.rq1Lock)
     {
-      final long PAUSE_BETWEEN_RQ1S_MS = 25L;
-      while (! Thread.interrupted ())
+      this.rq1Cycle++;
+      this.rq1CycleStartNanos = System.nanoTime ();
+      this.rq1CycleDone = false;
+      this.rq1Next = 0;
+      this.rq1NumberInFlight = 0;
+      Arrays.fill (this.rq1InFlight, false);
+    }
+    sendRQ1Requests ();
+  }
+  
+  /** Sends the next RQ1 requests in the current cycle as far as the window allows, or schedules the next cycle if done.
+   * 
+   */
+  private void sendRQ1Requests ()
+  {
+    while (true)
+    {
+      final int index;
+      final long cycle;
+      final long timeoutNanos;
+      final int[] range;
+      synchronized (this.rq1Lock)
       {
-        MidiDevice_Me80_Base.this.sendMidiIdReq ();
-        for (final String parameter : MidiDevice_Me80_Base.this.RQ1_REQUESTS)
+        if (this.rq1CycleDone)
+          return;
+        if (this.rq1Next == this.rq1Plan.length && this.rq1NumberInFlight == 0)
+        {
+          this.rq1CycleDone = true;
+          final long remainingNanos = this.ME80_MAIN_REQUEST_LOOP_PERIOD_MS * 1000000L
+            - (System.nanoTime () - this.rq1CycleStartNanos);
+          this.me80ScheduledTasks.schedule (this::startRequestCycle, Math.max (0L, remainingNanos), TimeUnit.NANOSECONDS);
+          return;
+        }
+        if (this.rq1Next == this.rq1Plan.length || this.rq1NumberInFlight >= this.rq1Window)
+          return;
+        index = this.rq1Next++;
+        cycle = this.rq1Cycle;
+        range = this.rq1Plan[index];
+        this.rq1InFlight[index] = true;
+        this.rq1NumberInFlight++;
+        this.rq1SentNanos[index] = System.nanoTime ();
+        timeoutNanos = getRQ1TimeoutNanos ();
+      }
+      sendMidiSysExMessage_RolandBoss_RQ1 (range[0], range[1]);
+      this.me80ScheduledTasks.schedule (() -> onRQ1Timeout (cycle, index), timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+  }
+  
+  /** Returns the timeout for an RQ1 request from the smoothed round-trip time and its variation (like TCP).
+   * 
+   * @return The timeout in nanoseconds.
+   * 
+   */
+  private long getRQ1TimeoutNanos ()
+  {
+    if (this.rq1SmoothedRttNanos < 0)
+      return this.RQ1_INITIAL_TIMEOUT_MS * 1000000L;
+    return Math.min (this.RQ1_MAXIMUM_TIMEOUT_MS * 1000000L,
+      Math.max (this.RQ1_MINIMUM_TIMEOUT_MS * 1000000L, this.rq1SmoothedRttNanos + 4 * this.rq1RttVariationNanos));
+  }
+  
+  /** Matches a received DT1 message with an outstanding RQ1 request, records the round-trip time and adapts the window.
+   * 
+   * <p>
+   * The window grows as long as the round-trip time stays close to the minimum observed,
+   * and shrinks once requests start queueing at the device.
+   * 
+   */
+  @Override
+  protected void onDT1Received (final int address, final int length)
+  {
+    super.onDT1Received (address, length);
+    final long nowNanos = System.nanoTime ();
+    synchronized (this.rq1Lock)
+    {
+      int index = -1;
+      for (int i = 0; i < this.rq1Plan.length; i++)
+        if (this.rq1InFlight[i] && this.rq1Plan[i][0] == address)
         {
-          Thread.sleep (PAUSE_BETWEEN_RQ1S_MS);
-          MidiDevice_Me80_Base.this.sendMidiSysExMessage_RolandBoss_RQ1 (parameter);
+          index = i;
+          break;
         }
-        Thread.sleep (MidiDevice_Me80_Base.this.ME80_MAIN_REQUEST_LOOP_PERIOD_MS
-          - MidiDevice_Me80_Base.this.RQ1_REQUESTS.size () * PAUSE_BETWEEN_RQ1S_MS);
+      if (index < 0)
+        return;
+      this.rq1InFlight[index] = false;
+      this.rq1NumberInFlight--;
+      final long rttNanos = nowNanos - this.rq1SentNanos[index];
+      this.rq1RttNanos[index] = this.rq1RttNanos[index] < 0 ? rttNanos : (7 * this.rq1RttNanos[index] + rttNanos) / 8;
+      if (this.rq1SmoothedRttNanos < 0)
+      {
+        this.rq1SmoothedRttNanos = rttNanos;
+        this.rq1RttVariationNanos = rttNanos / 2;
       }
+      else
+      {
+        this.rq1RttVariationNanos = (3 * this.rq1RttVariationNanos + Math.abs (this.rq1SmoothedRttNanos - rttNanos)) / 4;
+        this.rq1SmoothedRttNanos = (7 * this.rq1SmoothedRttNanos + rttNanos) / 8;
+      }
+      this.rq1MinimumRttNanos = Math.min (this.rq1MinimumRttNanos, rttNanos);
+      if (rttNanos <= this.rq1MinimumRttNanos + this.rq1MinimumRttNanos / 2)
+        this.rq1Window = Math.min (this.RQ1_MAXIMUM_WINDOW, this.rq1Window + 1);
+      else if (rttNanos > 2 * this.rq1MinimumRttNanos)
+        this.rq1Window = Math.max (1, this.rq1Window - 1);
     }
-    catch (InterruptedException ie)
-    {      
+    this.me80ScheduledTasks.schedule (this::sendRQ1Requests, 0L, TimeUnit.MILLISECONDS);
+  }
+  
+  private void onRQ1Timeout (final long cycle, final int index)
+  {
+    synchronized (this.rq1Lock)
+    {
+      if (cycle != this.rq1Cycle || ! this.rq1InFlight[index])
+        return;
+      this.rq1InFlight[index] = false;
+      this.rq1NumberInFlight--;
+      this.rq1Window = Math.max (1, this.rq1Window / 2);
+    }
+    LOG.log (Level.FINE, "RQ1 request timed out on BOSS ME-80: range {0}.", index);
+    sendRQ1Requests ();
+  }
+  
+  /** Returns the (smoothed) round-trip times of the periodic RQ1 requests.
+   * 
+   * @return The round-trip times in milliseconds, one per planned (merged) RQ1 request, in ascending order of address;
+   *         {@link Double#NaN} if not (yet) measured.
+   * 
+   * @see #addRQ1Request
+   * 
+   */
+  public final double[] getRQ1RoundTripTimesMs ()
+  {
+    synchronized (this.rq1Lock)
+    {
+      final double[] rttsMs = new double[this.rq1RttNanos.length];
+      for (int i = 0; i < rttsMs.length; i++)
+        rttsMs[i] = this.rq1RttNanos[i] < 0 ? Double.NaN : this.rq1RttNanos[i] / 1.0e6;
+      return rttsMs;
+    }
+  }
+  
+  private void stopMainRequestLoop ()
+  {
+    synchronized (this.rq1Lock)
+    {
+      this.rq1CycleDone = true;
+      this.rq1Cycle++;
     }
     LOG.log (Level.INFO, "Terminated Main Request Loop on BOSS ME-80.");
-  };
+  }
   
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
   //
@@ -237,54 +494,84 @@ public class MidiDevice_Me80_Base
   //
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
   
-  private volatile Instant lastUpdate = Instant.MIN;
+  /** The time (in milliseconds) after the last ID reply received at which the watchdog fails.
+   * 
+   */
+  private final long ME80_WATCHDOG_TIMEOUT_MS = 2000L;
   
   // XXX Concurrency issues on this field?
   private volatile boolean watchdogStatus = false;
 
+  private final Object watchdogLock = new Object ();
+  
+  private long watchdogDeadlineNanos = System.nanoTime ();
+  
+  private ScheduledFuture<?> watchdogTimeout = null;
+  
   @Override
   protected void onIdReply
   (final byte deviceId, final byte[] deviceFamilyCode, final byte[] deviceFamilyNumber, final byte[] softwareRevisionLevel)
   {
     super.onIdReply (deviceId, deviceFamilyCode, deviceFamilyNumber, softwareRevisionLevel);
-    this.lastUpdate = Instant.now ();
-    this.watchdogStatus = true;
+    rearmWatchdog ();
     fireWatchdogSuccess (deviceId, deviceFamilyCode, deviceFamilyNumber, softwareRevisionLevel);
   }
   
-  private final Runnable me80Watchdog = () ->
+  private void startWatchdog ()
   {
-    try
+    LOG.log (Level.INFO, "Starting Watchdog on BOSS ME-80.");
+    fireWatchdogStart ();
+  }
+  
+  /** Re-arms the watchdog deadline upon reception of an ID reply.
+   * 
+   * <p>
+   * At most a single timeout task is pending at any time;
+   * instead of being rescheduled upon each re-arm,
+   * it checks the (then current) deadline once it runs.
+   * 
+   */
+  private void rearmWatchdog ()
+  {
+    synchronized (this.watchdogLock)
     {
-      LOG.log (Level.INFO, "Starting Watchdog on BOSS ME-80.");
-      fireWatchdogStart ();
-      while (! Thread.interrupted ())
+      this.watchdogDeadlineNanos = System.nanoTime () + this.ME80_WATCHDOG_TIMEOUT_MS * 1000000L;
+      if (this.watchdogTimeout == null)
+        this.watchdogTimeout = this.me80ScheduledTasks.schedule (this::onWatchdogTimeout,
+          this.ME80_WATCHDOG_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+      // Only report a healthy status while the timeout is armed, i.e., while running.
+      this.watchdogStatus = (this.watchdogTimeout != null);
+    }
+  }
+  
+  private void onWatchdogTimeout ()
+  {
+    synchronized (this.watchdogLock)
+    {
+      final long remainingNanos = this.watchdogDeadlineNanos - System.nanoTime ();
+      if (remainingNanos > 0)
       {
-        boolean newWatchdogStatus;
-        try
-        {
-          newWatchdogStatus = Duration.between (MidiDevice_Me80_Base.this.lastUpdate, Instant.now ()).toMillis () <= 2000L;
-        }
-        catch (ArithmeticException ae)
-        {
-          newWatchdogStatus = false;
-        }
-        if (newWatchdogStatus != MidiDevice_Me80_Base.this.watchdogStatus)
-        {
-          MidiDevice_Me80_Base.this.watchdogStatus = newWatchdogStatus;
-          if (! newWatchdogStatus)
-            MidiDevice_Me80_Base.this.fireWatchdogFail ();
-        }
-        Thread.sleep (1000L);
+        this.watchdogTimeout = this.me80ScheduledTasks.schedule (this::onWatchdogTimeout, remainingNanos, TimeUnit.NANOSECONDS);
+        return;
       }
+      this.watchdogTimeout = null;
+      if (! this.watchdogStatus)
+        return;
+      this.watchdogStatus = false;
     }
-    catch (InterruptedException ie)
+    fireWatchdogFail ();
+  }
+  
+  private void stopWatchdog ()
+  {
+    synchronized (this.watchdogLock)
     {
+      this.watchdogTimeout = null;
+      this.watchdogStatus = false;
     }
-    MidiDevice_Me80_Base.this.watchdogStatus = false;
     fireWatchdogStop ();
     LOG.log (Level.INFO, "Terminated Watchdog on BOSS ME-80.");
-  };
+  }
 
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
   //
@@ -296,10 +583,10 @@ public class MidiDevice_Me80_Base
   //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
   @Override
-  protected void onParameterReadFromDevice (final String key, final byte[] value)
+  protected void onParameterReadFromDevice (final String key, final byte[] bytes, final int offset, final int length)
   {
-    super.onParameterReadFromDevice (key, value);
-    if (value == null)
+    super.onParameterReadFromDevice (key, bytes, offset, length);
+    if (bytes == null)
       throw new RuntimeException ();
     switch (key)
     {
@@ -311,6 +598,8 @@ public class MidiDevice_Me80_Base
       default:
         return;
     }
+    // Only the (few) parameters of interest here are copied out of the range.
+    final byte[] value = Arrays.copyOfRange (bytes, offset, offset + length);
     switch (key)
     {
       case CURRENT_PATCH_NO_RAW_NAME:
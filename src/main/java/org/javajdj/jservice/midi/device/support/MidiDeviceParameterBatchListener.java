@@ -0,0 +1,41 @@
+/* 
+ * Copyright 2019 Jan de Jongh <jfcmdejongh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package org.javajdj.jservice.midi.device.support;
+
+import java.util.Map;
+import org.javajdj.jservice.midi.device.MidiDeviceListener;
+
+/** A {@link MidiDeviceListener} that is also notified (once) of all parameter changes in a {@link ParameterUpdateBatch}.
+ * 
+ * <p>
+ * The per-key notifications are still delivered to the listener (before the aggregated one).
+ * 
+ * @author Jan de Jongh {@literal <jfcmdejongh@gmail.com>}
+ * 
+ */
+public interface MidiDeviceParameterBatchListener
+  extends MidiDeviceListener
+{
+  
+  /** Notification of the parameter changes in a batch.
+   * 
+   * @param changes The (unmodifiable) changes, in order of (last) change, with {@code null} values for invalidations.
+   * 
+   */
+  void parametersChanged (Map<String, Object> changes);
+  
+}
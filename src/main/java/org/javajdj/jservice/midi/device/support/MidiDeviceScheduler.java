@@ -0,0 +1,361 @@
+/* 
+ * Copyright 2019 Jan de Jongh <jfcmdejongh@gmail.com>.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package org.javajdj.jservice.midi.device.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.javajdj.jservice.Service;
+import org.javajdj.jservice.midi.device.MidiDevice;
+import org.javajdj.jservice.support.Service_FromMix;
+
+/** A shared (pluggable) scheduler for the periodic tasks of {@link MidiDevice}s,
+ *  like main request loops and watchdogs.
+ * 
+ * <p>
+ * Instead of occupying a (mostly sleeping) thread for each periodic task,
+ * devices submit their periodic tasks to a single {@link ScheduledExecutorService}
+ * shared among all device instances.
+ * By default, this is a small pool of daemon threads created upon first use,
+ * but it can be replaced through {@link #setScheduledExecutorService}.
+ * 
+ * <p>
+ * Instead of handing (blocking) {@link Runnable}s to their super {@link Service_FromMix},
+ * each of which would occupy a service thread while the device is active,
+ * devices register a single {@link ScheduledTasks} object as status listener on themselves.
+ * Once the device becomes {@link Service.Status#ACTIVE}, it schedules the periodic tasks of the device
+ * on the shared scheduler, and it cancels them once the device leaves that state.
+ * No thread is dedicated to a device.
+ * 
+ * @author Jan de Jongh {@literal <jfcmdejongh@gmail.com>}
+ * 
+ */
+public final class MidiDeviceScheduler
+{
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // LOGGING
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  private static final Logger LOG = Logger.getLogger (MidiDeviceScheduler.class.getName ());
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // CONSTRUCTORS / FACTORIES / CLONING
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  /** Prevents instantiation.
+   * 
+   */
+  private MidiDeviceScheduler ()
+  {
+  }
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // SCHEDULED EXECUTOR SERVICE
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  /** The number of threads in the default scheduler.
+   * 
+   */
+  public final static int DEFAULT_NUMBER_OF_THREADS = 2;
+
+  private static ScheduledExecutorService scheduledExecutorService = null;
+
+  private static final AtomicInteger THREAD_COUNTER = new AtomicInteger ();
+
+  /** Returns the shared scheduler, creating the default one if needed.
+   * 
+   * @return The shared scheduler, non-{@code null}.
+   * 
+   * @see #setScheduledExecutorService
+   * 
+   */
+  public static synchronized ScheduledExecutorService getScheduledExecutorService ()
+  {
+    if (MidiDeviceScheduler.scheduledExecutorService == null)
+    {
+      final ScheduledThreadPoolExecutor defaultExecutorService = new ScheduledThreadPoolExecutor
+        (MidiDeviceScheduler.DEFAULT_NUMBER_OF_THREADS, (final Runnable r) ->
+        {
+          final Thread thread = new Thread (r, "MidiDeviceScheduler-" + MidiDeviceScheduler.THREAD_COUNTER.incrementAndGet ());
+          thread.setDaemon (true);
+          return thread;
+        });
+      defaultExecutorService.setRemoveOnCancelPolicy (true);
+      MidiDeviceScheduler.scheduledExecutorService = defaultExecutorService;
+    }
+    return MidiDeviceScheduler.scheduledExecutorService;
+  }
+
+  /** Sets the shared scheduler.
+   * 
+   * <p>
+   * The new scheduler is used by devices started (or restarted) after this call;
+   * devices already running keep their scheduler until stopped.
+   * The previous scheduler is <i>not</i> shut down.
+   * 
+   * @param scheduledExecutorService The new scheduler, {@code null} for the default one.
+   * 
+   * @see #getScheduledExecutorService
+   * 
+   */
+  public static synchronized void setScheduledExecutorService (final ScheduledExecutorService scheduledExecutorService)
+  {
+    MidiDeviceScheduler.scheduledExecutorService = scheduledExecutorService;
+  }
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // SCHEDULED TASKS
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  /** A {@link Service.StatusListener} for a device (service) that holds the periodic tasks of the device on the shared scheduler.
+   * 
+   * <p>
+   * Upon start (see {@link #start}), typically once the device becomes {@link Service.Status#ACTIVE},
+   * the shared scheduler is obtained, and {@link #onStart} is invoked,
+   * in which sub-classes schedule their tasks through {@link #schedule} and {@link #scheduleWithFixedDelay}.
+   * Upon stop (see {@link #stop}), typically once the device leaves {@link Service.Status#ACTIVE},
+   * all tasks are cancelled, and {@link #onStop} is invoked.
+   * Neither method blocks, and no thread is occupied in between.
+   * 
+   * <p>
+   * Tasks scheduled in a previous run never execute in a subsequent run,
+   * but a task already executing upon stop is allowed to complete.
+   * 
+   */
+  public static abstract class ScheduledTasks
+    implements Service.StatusListener
+  {
+
+    private final String name;
+
+    /** Creates the scheduled tasks.
+     * 
+     * @param name The name (used for logging only), non-{@code null}.
+     * 
+     * @throws IllegalArgumentException If the name is {@code null}.
+     * 
+     */
+    protected ScheduledTasks (final String name)
+    {
+      if (name == null)
+        throw new IllegalArgumentException ();
+      this.name = name;
+    }
+
+    private static final class Run
+    {
+
+      private final ScheduledExecutorService scheduledExecutorService;
+
+      private final List<Future<?>> futures = new ArrayList<> ();
+
+      private volatile boolean active = true;
+
+      private Run (final ScheduledExecutorService scheduledExecutorService)
+      {
+        this.scheduledExecutorService = scheduledExecutorService;
+      }
+
+      private Runnable guard (final Runnable task)
+      {
+        return () ->
+        {
+          if (! this.active)
+            return;
+          try
+          {
+            task.run ();
+          }
+          catch (RuntimeException re)
+          {
+            // Prevent the scheduler from silently suppressing subsequent executions of periodic tasks.
+            LOG.log (Level.WARNING, "RuntimeException in scheduled task.", re);
+          }
+        };
+      }
+
+      private synchronized void add (final Future<?> future)
+      {
+        this.futures.removeIf (Future::isDone);
+        if (this.active)
+          this.futures.add (future);
+        else
+          future.cancel (false);
+      }
+
+      private synchronized void cancel ()
+      {
+        this.active = false;
+        for (final Future<?> future : this.futures)
+          future.cancel (false);
+        this.futures.clear ();
+      }
+
+    }
+
+    private volatile Run run = null;
+
+    /** Returns whether the tasks are currently scheduled, i.e., whether we are between {@link #onStart} and {@link #onStop}.
+     * 
+     * @return Whether the tasks are currently scheduled.
+     * 
+     */
+    public final boolean isRunning ()
+    {
+      final Run currentRun = this.run;
+      return currentRun != null && currentRun.active;
+    }
+
+    /** Schedules a one-shot task on the shared scheduler.
+     * 
+     * @param task  The task, non-{@code null}.
+     * @param delay The delay.
+     * @param unit  The time unit of the delay, non-{@code null}.
+     * 
+     * @return The future of the task, {@code null} if not running.
+     * 
+     * @throws IllegalArgumentException If the task or unit is {@code null}.
+     * 
+     */
+    public final ScheduledFuture<?> schedule (final Runnable task, final long delay, final TimeUnit unit)
+    {
+      if (task == null || unit == null)
+        throw new IllegalArgumentException ();
+      final Run currentRun = this.run;
+      if (currentRun == null || ! currentRun.active)
+        return null;
+      final ScheduledFuture<?> future = currentRun.scheduledExecutorService.schedule (currentRun.guard (task), delay, unit);
+      currentRun.add (future);
+      return future;
+    }
+
+    /** Schedules a periodic task with fixed delay between executions on the shared scheduler.
+     * 
+     * @param task         The task, non-{@code null}.
+     * @param initialDelay The initial delay.
+     * @param delay        The delay between the termination of one execution and the start of the next.
+     * @param unit         The time unit of the delays, non-{@code null}.
+     * 
+     * @return The future of the task, {@code null} if not running.
+     * 
+     * @throws IllegalArgumentException If the task or unit is {@code null}.
+     * 
+     */
+    public final ScheduledFuture<?> scheduleWithFixedDelay
+      (final Runnable task, final long initialDelay, final long delay, final TimeUnit unit)
+    {
+      if (task == null || unit == null)
+        throw new IllegalArgumentException ();
+      final Run currentRun = this.run;
+      if (currentRun == null || ! currentRun.active)
+        return null;
+      final ScheduledFuture<?> future =
+        currentRun.scheduledExecutorService.scheduleWithFixedDelay (currentRun.guard (task), initialDelay, delay, unit);
+      currentRun.add (future);
+      return future;
+    }
+
+    /** Invoked upon start; schedules the tasks.
+     * 
+     */
+    protected abstract void onStart ();
+
+    /** Invoked upon stop, after all tasks have been cancelled.
+     * 
+     */
+    protected abstract void onStop ();
+
+    /** Starts the tasks, unless already started.
+     * 
+     * <p>
+     * Obtains the shared scheduler and invokes {@link #onStart};
+     * a {@link RuntimeException} from the latter is logged and swallowed.
+     * 
+     */
+    public final synchronized void start ()
+    {
+      if (isRunning ())
+        return;
+      final Run currentRun = new Run (MidiDeviceScheduler.getScheduledExecutorService ());
+      this.run = currentRun;
+      LOG.log (Level.INFO, "Scheduling tasks for {0}.", this.name);
+      try
+      {
+        onStart ();
+      }
+      catch (RuntimeException re)
+      {
+        // Do not break the status dispatch to other listeners of the service.
+        LOG.log (Level.WARNING, "RuntimeException while starting tasks for " + this.name + ".", re);
+      }
+    }
+
+    /** Stops the tasks, unless not started.
+     * 
+     * <p>
+     * Cancels all tasks and invokes {@link #onStop};
+     * a {@link RuntimeException} from the latter is logged and swallowed.
+     * 
+     */
+    public final synchronized void stop ()
+    {
+      if (! isRunning ())
+        return;
+      this.run.cancel ();
+      LOG.log (Level.INFO, "Cancelled tasks for {0}.", this.name);
+      try
+      {
+        onStop ();
+      }
+      catch (RuntimeException re)
+      {
+        // Do not break the status dispatch to other listeners of the service.
+        LOG.log (Level.WARNING, "RuntimeException while stopping tasks for " + this.name + ".", re);
+      }
+    }
+
+    /** Starts the tasks if the service becomes {@link Service.Status#ACTIVE}, and stops them otherwise.
+     * 
+     */
+    @Override
+    public final void onNewStatus (final Service service, final Service.Status oldStatus, final Service.Status newStatus)
+    {
+      if (newStatus == Service.Status.ACTIVE)
+        start ();
+      else
+        stop ();
+    }
+
+  }
+
+}
@@ -0,0 +1,195 @@
+/* 
+ * Copyright 2019 Jan de Jongh <jfcmdejongh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package org.javajdj.jservice.midi.device.support;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.javajdj.jservice.midi.device.MidiDevice;
+
+/** Batches of parameter updates from a {@link MidiDevice}, typically one batch per incoming MIDI message.
+ * 
+ * <p>
+ * While a batch is open on a thread (see {@link #begin}),
+ * parameter updates and invalidations from that thread (see {@link #update}) are collected instead of being applied;
+ * once the (outermost) batch is closed (see {@link #end}), the collected updates are applied
+ * in order of (last) change.
+ * 
+ * <p>
+ * A batch only <i>coalesces</i> updates:
+ * repeated updates of a key within a batch collapse into the last one.
+ * The remaining updates are applied, and reported to listeners, one key at a time
+ * through the {@link Target}, typically the per-key update and invalidation methods of the device;
+ * after that, the {@link Target} is handed all updates of the batch at once,
+ * typically for an aggregated change notification
+ * (see {@link MidiDeviceParameterBatchListener}).
+ * 
+ * <p>
+ * Batches are per thread:
+ * each thread has its own (possibly nested) batch,
+ * and updates from a thread that has no open batch are applied immediately,
+ * irrespective of batches open on other threads.
+ * 
+ * @author Jan de Jongh {@literal <jfcmdejongh@gmail.com>}
+ * 
+ */
+public final class ParameterUpdateBatch
+{
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // TARGET
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  /** The parameter store to which the updates in a batch are applied, typically the device itself.
+   * 
+   */
+  public interface Target
+  {
+    
+    /** Updates (or, with a {@code null} value, invalidates) a parameter.
+     * 
+     * @param key   The key.
+     * @param value The new value, {@code null} for invalidation.
+     * 
+     */
+    void applyParameterUpdate (String key, Object value);
+    
+    /** Notification that all updates of a batch have been applied.
+     * 
+     * <p>
+     * Not invoked for empty batches.
+     * 
+     * @param updates The (unmodifiable) updates, in order of (last) change, with {@code null} values for invalidations.
+     * 
+     */
+    void parameterUpdatesApplied (Map<String, Object> updates);
+    
+  }
+  
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // CONSTRUCTORS / FACTORIES / CLONING
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  /** Creates batches for given target.
+   * 
+   * @param target The target, non-{@code null}.
+   * 
+   * @throws IllegalArgumentException If the target is {@code null}.
+   * 
+   */
+  public ParameterUpdateBatch (final Target target)
+  {
+    if (target == null)
+      throw new IllegalArgumentException ();
+    this.target = target;
+  }
+  
+  private final Target target;
+  
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // PER-THREAD STATE
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  private static final class State
+  {
+    
+    private int depth = 0;
+    
+    /** The updates collected in the open batch, in order of (last) change.
+     * 
+     */
+    private Map<String, Object> updates = new LinkedHashMap<> ();
+    
+  }
+  
+  private final ThreadLocal<State> states = ThreadLocal.withInitial (State::new);
+  
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // BATCHES
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  /** Opens (or nests) a batch on the current thread.
+   * 
+   * <p>
+   * Each call must be matched by a call to {@link #end}, typically in a {@code finally} block.
+   * 
+   */
+  public final void begin ()
+  {
+    this.states.get ().depth++;
+  }
+  
+  /** Closes a batch on the current thread, applying the collected updates if it is the outermost batch.
+   * 
+   * <p>
+   * Ignored if the current thread has no open batch.
+   * 
+   */
+  public final void end ()
+  {
+    final State state = this.states.get ();
+    if (state.depth == 0)
+      return;
+    state.depth--;
+    if (state.depth > 0 || state.updates.isEmpty ())
+      return;
+    // Batches opened (e.g., by listeners) while applying the updates collect into a fresh map.
+    final Map<String, Object> updates = state.updates;
+    state.updates = new LinkedHashMap<> ();
+    for (final Map.Entry<String, Object> update : updates.entrySet ())
+      this.target.applyParameterUpdate (update.getKey (), update.getValue ());
+    this.target.parameterUpdatesApplied (Collections.unmodifiableMap (updates));
+  }
+  
+  /** Updates (or, with a {@code null} value, invalidates) a parameter, respecting the open batch (if any) on the current thread.
+   * 
+   * @param key   The key, non-{@code null}.
+   * @param value The new value, {@code null} for invalidation.
+   * 
+   * @throws IllegalArgumentException If the key is {@code null}.
+   * 
+   */
+  public final void update (final String key, final Object value)
+  {
+    if (key == null)
+      throw new IllegalArgumentException ();
+    final State state = this.states.get ();
+    if (state.depth > 0)
+    {
+      // Remove first, so the key moves to the end (order of last change).
+      state.updates.remove (key);
+      state.updates.put (key, value);
+    }
+    else
+      this.target.applyParameterUpdate (key, value);
+  }
+  
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // END OF FILE
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+}
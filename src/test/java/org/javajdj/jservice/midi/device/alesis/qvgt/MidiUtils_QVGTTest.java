@@ -0,0 +1,340 @@
+/* 
+ * Copyright 2019 Jan de Jongh <jfcmdejongh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package org.javajdj.jservice.midi.device.alesis.qvgt;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/** Tests for {@link MidiUtils_QVGT}.
+ *
+ * <p>
+ * Verifies the (word-at-a-time) 7/8-bit codec against the original (bit-at-a-time) reference implementation
+ * on randomized messages, ranges and destination lengths.
+ * 
+ * @author Jan de Jongh {@literal <jfcmdejongh@gmail.com>}
+ * 
+ */
+public class MidiUtils_QVGTTest
+{
+
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // REFERENCE IMPLEMENTATIONS
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  
+  /** Encodes a range in a byte array into a range of (part of a) MIDI message, one bit offset at a time.
+   * 
+   * <p>
+   * Reference implementation of {@link MidiUtils_QVGT#encodeToMidi(byte[], int, int, byte[], int, int)};
+   * the original bit-at-a-time implementation, against which the word-at-a-time implementation is verified.
+   * 
+   * @param src       The source array holding the decoded message, non-{@code null}.
+   * @param srcOffset The offset of the decoded message in the source array.
+   * @param srcLength The length of the decoded message.
+   * @param dst       The destination array, non-{@code null}.
+   * @param dstOffset The offset in the destination array at which to write the encoded message.
+   * @param dstLength The length of the encoded message,
+   *                     allowing some bits in (only) the last byte of the input message
+   *                     to be discarded.
+   * 
+   * @throws IllegalArgumentException If either array is {@code null}, either range is out of bounds,
+   *                                    or the {@code dstLength} argument has illegal value.
+   * 
+   */
+  private static void encodeToMidi_Reference
+  (final byte[] src, final int srcOffset, final int srcLength, final byte[] dst, final int dstOffset, final int dstLength)
+  {
+    if (src == null || srcOffset < 0 || srcLength < 0 || srcOffset + srcLength > src.length)
+      throw new IllegalArgumentException ();
+    if (dst == null || dstOffset < 0 || dstLength < 0 || dstOffset + dstLength > dst.length)
+      throw new IllegalArgumentException ();
+    final int nrOfBits = srcLength * 8;
+    final int dstLengthCalculated = (nrOfBits + 6) / 7;
+    if ((nrOfBits % 7 == 0) && dstLength != dstLengthCalculated)
+      throw new IllegalArgumentException ();
+    if ((nrOfBits % 7 != 0) && dstLength != dstLengthCalculated && dstLength != (dstLengthCalculated - 1))
+      throw new IllegalArgumentException ();
+    Arrays.fill (dst, dstOffset, dstOffset + dstLength, (byte) 0);
+    int dstPosition = 0;
+    int dstBitOffset = 1;
+    for (int srcPosition = 0; srcPosition < srcLength; srcPosition++)
+    {
+      final byte messageByte = src[srcOffset + srcPosition];
+      dst[dstOffset + dstPosition] |= ((messageByte & 0xFF) >>> dstBitOffset);
+      // XXX Does this actually make sense when encoding?? Why would you ever want to do that (dropping bits from decoded input)??
+      if (dstPosition + 1 >= dstLength)
+        break;
+      dst[dstOffset + dstPosition + 1] = (byte) (0x7F & (messageByte << (7 - dstBitOffset)));
+      dstPosition++;
+      dstBitOffset++;
+      if (dstBitOffset == 8)
+      {
+        dstPosition++;
+        if (dstPosition >= dstLength)
+          break;
+        dstBitOffset = 1;
+      }
+    }
+  }
+  
+  /** Decodes a range of (part of a) MIDI message into a range in a byte array, one bit offset at a time.
+   * 
+   * <p>
+   * Reference implementation of {@link MidiUtils_QVGT#decodeFromMidi(byte[], int, int, byte[], int, int)};
+   * the original bit-at-a-time implementation, against which the word-at-a-time implementation is verified.
+   * 
+   * @param src       The source array holding the raw (part of a) MIDI message, non-{@code null}.
+   * @param srcOffset The offset of the raw message in the source array.
+   * @param srcLength The length of the raw message.
+   * @param dst       The destination array, non-{@code null}.
+   * @param dstOffset The offset in the destination array at which to write the decoded message.
+   * @param dstLength The length of the decoded message,
+   *                     allowing some bits in (only) the last byte of the raw MIDI message
+   *                     to be discarded.
+   * 
+   * @throws IllegalArgumentException If either array is {@code null}, either range is out of bounds,
+   *                                    the raw message contains MIDI Status Bytes,
+   *                                    or the {@code dstLength} argument has illegal value.
+   * 
+   */
+  private static void decodeFromMidi_Reference
+  (final byte[] src, final int srcOffset, final int srcLength, final byte[] dst, final int dstOffset, final int dstLength)
+  {
+    if (src == null || srcOffset < 0 || srcLength < 0 || srcOffset + srcLength > src.length)
+      throw new IllegalArgumentException ();
+    if (dst == null || dstOffset < 0 || dstLength < 0 || dstOffset + dstLength > dst.length)
+      throw new IllegalArgumentException ();
+    final int nrOfBits = srcLength * 7;
+    final int dstLengthCalculated = (nrOfBits + 7) / 8;
+    if ((nrOfBits % 8 == 0) && dstLength != dstLengthCalculated)
+      throw new IllegalArgumentException ();
+    if ((nrOfBits % 8 != 0) && dstLength != dstLengthCalculated && dstLength != (dstLengthCalculated - 1))
+      throw new IllegalArgumentException ();
+    Arrays.fill (dst, dstOffset, dstOffset + dstLength, (byte) 0);
+    int dstPosition = 0;
+    int dstBitOffset = 0;
+    for (int srcPosition = 0; srcPosition < srcLength; srcPosition++)
+    {
+      final byte rawMessageByte = src[srcOffset + srcPosition];
+      if (rawMessageByte < 0)
+        throw new IllegalArgumentException ();
+      else if (dstPosition >= dstLength)
+        // Never write beyond the destination range; the remaining (raw) bits are discarded.
+        break;
+      else if (dstBitOffset == 0)
+      {
+        dst[dstOffset + dstPosition] = (byte) (rawMessageByte << 1);
+        dstBitOffset = 7;
+      }
+      else if (dstBitOffset == 1)
+      {
+        dst[dstOffset + dstPosition] |= rawMessageByte;
+        dstPosition++;
+        dstBitOffset = 0;
+      }
+      else
+      {
+        dst[dstOffset + dstPosition] |= (rawMessageByte >>> (dstBitOffset - 1));
+        if (dstPosition + 1 >= dstLength)
+          break;
+        dst[dstOffset + dstPosition + 1] = (byte) (rawMessageByte << (9 - dstBitOffset));
+        dstPosition++;
+        dstBitOffset = (dstBitOffset + 7) % 8;
+      }
+    }
+  }
+  
+//////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // TEST SUPPORT
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  
+  private static final long SEED = 0x51A7E5EEDL;
+  
+  private static final int NUMBER_OF_RUNS = 20000;
+  
+  private static final int MAXIMUM_MESSAGE_LENGTH = 200;
+  
+  private static final int MAXIMUM_PADDING = 16;
+  
+  private static byte[] randomBytes (final Random random, final int length, final int mask)
+  {
+    final byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++)
+      bytes[i] = (byte) (random.nextInt () & mask);
+    return bytes;
+  }
+  
+  /** Returns a (randomly chosen) legal destination length given the number of source bits and bits per destination byte.
+   * 
+   */
+  private static int randomDstLength (final Random random, final int nrOfBits, final int bitsPerDstByte)
+  {
+    final int dstLengthCalculated = (nrOfBits + bitsPerDstByte - 1) / bitsPerDstByte;
+    if (nrOfBits % bitsPerDstByte == 0 || random.nextBoolean ())
+      return dstLengthCalculated;
+    else
+      return dstLengthCalculated - 1;
+  }
+  
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  //
+  // TESTS
+  //
+  //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  
+  @Test
+  public void testEncodeToMidiEqualsReference ()
+  {
+    final Random random = new Random (MidiUtils_QVGTTest.SEED);
+    for (int run = 0; run < MidiUtils_QVGTTest.NUMBER_OF_RUNS; run++)
+    {
+      final int srcLength = random.nextInt (MidiUtils_QVGTTest.MAXIMUM_MESSAGE_LENGTH + 1);
+      final int srcOffset = random.nextInt (MidiUtils_QVGTTest.MAXIMUM_PADDING + 1);
+      final byte[] src = randomBytes (random, srcOffset + srcLength + random.nextInt (MidiUtils_QVGTTest.MAXIMUM_PADDING + 1), 0xFF);
+      final int dstLength = randomDstLength (random, srcLength * 8, 7);
+      final int dstOffset = random.nextInt (MidiUtils_QVGTTest.MAXIMUM_PADDING + 1);
+      // Garbage outside and inside the destination range; the range must be overwritten entirely, and nothing else.
+      final byte[] dst = randomBytes (random, dstOffset + dstLength + random.nextInt (MidiUtils_QVGTTest.MAXIMUM_PADDING + 1), 0xFF);
+      final byte[] dstReference = dst.clone ();
+      MidiUtils_QVGT.encodeToMidi (src, srcOffset, srcLength, dst, dstOffset, dstLength);
+      MidiUtils_QVGTTest.encodeToMidi_Reference (src, srcOffset, srcLength, dstReference, dstOffset, dstLength);
+      assertArrayEquals ("run " + run + ", srcLength " + srcLength + ", dstLength " + dstLength, dstReference, dst);
+    }
+  }
+  
+  @Test
+  public void testDecodeFromMidiEqualsReference ()
+  {
+    final Random random = new Random (MidiUtils_QVGTTest.SEED);
+    for (int run = 0; run < MidiUtils_QVGTTest.NUMBER_OF_RUNS; run++)
+    {
+      final int srcLength = random.nextInt (MidiUtils_QVGTTest.MAXIMUM_MESSAGE_LENGTH + 1);
+      final int srcOffset = random.nextInt (MidiUtils_QVGTTest.MAXIMUM_PADDING + 1);
+      final byte[] src = randomBytes (random, srcOffset + srcLength + random.nextInt (MidiUtils_QVGTTest.MAXIMUM_PADDING + 1), 0x7F);
+      final int dstLength = randomDstLength (random, srcLength * 7, 8);
+      final int dstOffset = random.nextInt (MidiUtils_QVGTTest.MAXIMUM_PADDING + 1);
+      final byte[] dst = randomBytes (random, dstOffset + dstLength + random.nextInt (MidiUtils_QVGTTest.MAXIMUM_PADDING + 1), 0xFF);
+      final byte[] dstReference = dst.clone ();
+      MidiUtils_QVGT.decodeFromMidi (src, srcOffset, srcLength, dst, dstOffset, dstLength);
+      MidiUtils_QVGTTest.decodeFromMidi_Reference (src, srcOffset, srcLength, dstReference, dstOffset, dstLength);
+      assertArrayEquals ("run " + run + ", srcLength " + srcLength + ", dstLength " + dstLength, dstReference, dst);
+    }
+  }
+  
+  @Test
+  public void testEncodeDecodeRoundTrip ()
+  {
+    final Random random = new Random (MidiUtils_QVGTTest.SEED);
+    for (int run = 0; run < MidiUtils_QVGTTest.NUMBER_OF_RUNS; run++)
+    {
+      final byte[] message = randomBytes (random, random.nextInt (MidiUtils_QVGTTest.MAXIMUM_MESSAGE_LENGTH + 1), 0xFF);
+      final int encodedLength = (message.length * 8 + 6) / 7;
+      final byte[] encoded = MidiUtils_QVGT.encodeToMidi (message, encodedLength);
+      for (final byte b : encoded)
+        if (b < 0)
+          fail ("run " + run + ": MIDI Status Byte in encoded message");
+      assertArrayEquals ("run " + run, message, MidiUtils_QVGT.decodeFromMidi (encoded, message.length));
+    }
+  }
+  
+  @Test
+  public void testByteBuffersEqualArrays ()
+  {
+    final Random random = new Random (MidiUtils_QVGTTest.SEED);
+    for (int run = 0; run < MidiUtils_QVGTTest.NUMBER_OF_RUNS / 10; run++)
+    {
+      final byte[] message = randomBytes (random, random.nextInt (MidiUtils_QVGTTest.MAXIMUM_MESSAGE_LENGTH + 1), 0xFF);
+      final int encodedLength = (message.length * 8 + 6) / 7;
+      final byte[] encoded = MidiUtils_QVGT.encodeToMidi (message, encodedLength);
+      // Direct buffers take the (copying) path for buffers without accessible array.
+      final ByteBuffer src = ByteBuffer.allocateDirect (message.length);
+      src.put (message).flip ();
+      final ByteBuffer dst = ByteBuffer.allocateDirect (encodedLength);
+      MidiUtils_QVGT.encodeToMidi (src, message.length, dst, encodedLength);
+      assertEquals (message.length, src.position ());
+      assertEquals (encodedLength, dst.position ());
+      final byte[] encodedFromBuffer = new byte[encodedLength];
+      dst.flip ();
+      dst.get (encodedFromBuffer);
+      assertArrayEquals ("run " + run, encoded, encodedFromBuffer);
+      final ByteBuffer decoded = ByteBuffer.allocate (message.length);
+      MidiUtils_QVGT.decodeFromMidi (ByteBuffer.wrap (encoded), encodedLength, decoded, message.length);
+      assertArrayEquals ("run " + run, message, Arrays.copyOf (decoded.array (), message.length));
+    }
+  }
+  
+  @Test
+  public void testIllegalArgumentsEqualReference ()
+  {
+    final Random random = new Random (MidiUtils_QVGTTest.SEED);
+    for (int run = 0; run < MidiUtils_QVGTTest.NUMBER_OF_RUNS / 10; run++)
+    {
+      final int srcLength = random.nextInt (MidiUtils_QVGTTest.MAXIMUM_MESSAGE_LENGTH + 1);
+      final byte[] src = randomBytes (random, srcLength, 0x7F);
+      if (srcLength > 0 && random.nextBoolean ())
+        src[random.nextInt (srcLength)] |= 0x80;
+      final int dstLength = random.nextInt (MidiUtils_QVGTTest.MAXIMUM_MESSAGE_LENGTH + 1);
+      boolean thrown = false;
+      boolean thrownReference = false;
+      try
+      {
+        MidiUtils_QVGT.encodeToMidi (src, 0, srcLength, new byte[dstLength], 0, dstLength);
+      }
+      catch (IllegalArgumentException iae)
+      {
+        thrown = true;
+      }
+      try
+      {
+        MidiUtils_QVGTTest.encodeToMidi_Reference (src, 0, srcLength, new byte[dstLength], 0, dstLength);
+      }
+      catch (IllegalArgumentException iae)
+      {
+        thrownReference = true;
+      }
+      assertEquals ("encode run " + run, thrownReference, thrown);
+      thrown = false;
+      thrownReference = false;
+      try
+      {
+        MidiUtils_QVGT.decodeFromMidi (src, 0, srcLength, new byte[dstLength], 0, dstLength);
+      }
+      catch (IllegalArgumentException iae)
+      {
+        thrown = true;
+      }
+      try
+      {
+        MidiUtils_QVGTTest.decodeFromMidi_Reference (src, 0, srcLength, new byte[dstLength], 0, dstLength);
+      }
+      catch (IllegalArgumentException iae)
+      {
+        thrownReference = true;
+      }
+      assertEquals ("decode run " + run, thrownReference, thrown);
+    }
+  }
+  
+}